@@ -0,0 +1,72 @@
+package benchmark;
+
+import ioc.BeanScope;
+import ioc.JavaConfig;
+import ioc.SimpleIoC;
+import org.apache.commons.text.WordUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BeanCreationBenchmark {
+
+    public static class Dependency {
+    }
+
+    @BeanScope(ioc.Scope.PROTOTYPE)
+    public static class Bean {
+        private final Dependency dependency;
+
+        public Bean(Dependency dependency) {
+            this.dependency = dependency;
+        }
+
+        public void init() {
+        }
+    }
+
+    private SimpleIoC simpleIoC;
+    private Dependency dependency;
+
+    @Setup
+    public void setUp() {
+        Map<String, Class<?>> beans = new LinkedHashMap<>();
+        beans.put("dependency", Dependency.class);
+        beans.put("bean", Bean.class);
+        simpleIoC = new SimpleIoC(new JavaConfig(beans));
+        dependency = (Dependency) simpleIoC.getBean("dependency");
+    }
+
+    // every lookup of a prototype bean runs its compiled creation plan
+    @Benchmark
+    public Object creationPlan() {
+        return simpleIoC.getBean("bean");
+    }
+
+    // mirrors the per-call reflection SimpleIoC did before creation plans
+    @Benchmark
+    public Object reflective() throws Exception {
+        Constructor<?> constructor = Bean.class.getDeclaredConstructors()[0];
+        Object[] arguments = new Object[constructor.getParameterCount()];
+        for (int index = 0; index < arguments.length; index++) {
+            Parameter parameter = constructor.getParameters()[index];
+            String injectedBeanName = WordUtils.uncapitalize(parameter.getType().getSimpleName());
+            arguments[index] = injectedBeanName.isEmpty() ? null : dependency;
+        }
+        Object bean = Bean.class.getDeclaredConstructors()[0].newInstance(arguments);
+        Method init = bean.getClass().getDeclaredMethod("init");
+        init.invoke(bean);
+        return bean;
+    }
+}
@@ -0,0 +1,66 @@
+package benchmark;
+
+import ioc.Config;
+import ioc.JavaConfig;
+import ioc.SimpleIoC;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChildContainerBenchmark {
+
+    public static class TenantService {
+        private final ContainerConstructionBenchmark.Leaf leaf;
+
+        public TenantService(ContainerConstructionBenchmark.Leaf leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    @Param({"10", "10000"})
+    public int parentBeanCount;
+
+    private SimpleIoC parent;
+    private Config childConfig;
+    private SimpleIoC warmChild;
+
+    @Setup
+    public void setUp() {
+        Map<String, Class<?>> beans = new LinkedHashMap<>();
+        beans.put("leaf", ContainerConstructionBenchmark.Leaf.class);
+        for (int index = 1; index < parentBeanCount; index++) {
+            beans.put("node" + index, ContainerConstructionBenchmark.Node.class);
+        }
+        parent = new SimpleIoC(new JavaConfig(beans));
+        parent.refresh();
+
+        childConfig = new JavaConfig(Collections.singletonMap("tenantService", TenantService.class));
+        warmChild = new SimpleIoC(childConfig, parent);
+        warmChild.getBean("tenantService");
+        warmChild.getBean("leaf");
+    }
+
+    @Benchmark
+    public SimpleIoC createChild() {
+        return new SimpleIoC(childConfig, parent);
+    }
+
+    @Benchmark
+    public Object createChildAndGetBean() {
+        return new SimpleIoC(childConfig, parent).getBean("tenantService");
+    }
+
+    @Benchmark
+    public Object parentBeanThroughWarmChild() {
+        return warmChild.getBean("leaf");
+    }
+}
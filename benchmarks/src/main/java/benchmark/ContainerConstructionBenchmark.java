@@ -0,0 +1,56 @@
+package benchmark;
+
+import ioc.Config;
+import ioc.JavaConfig;
+import ioc.SimpleIoC;
+import ioc.StartupReport;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContainerConstructionBenchmark {
+
+    public static class Leaf {
+    }
+
+    public static class Node {
+        private final Leaf leaf;
+
+        public Node(Leaf leaf) {
+            this.leaf = leaf;
+        }
+    }
+
+    @Param({"10", "1000", "10000"})
+    public int beanCount;
+
+    private Config config;
+
+    @Setup
+    public void setUp() {
+        Map<String, Class<?>> beans = new LinkedHashMap<>();
+        beans.put("leaf", Leaf.class);
+        for (int index = 1; index < beanCount; index++) {
+            beans.put("node" + index, Node.class);
+        }
+        config = new JavaConfig(beans);
+    }
+
+    @Benchmark
+    public SimpleIoC constructLazy() {
+        return new SimpleIoC(config);
+    }
+
+    @Benchmark
+    public StartupReport constructAndRefresh() {
+        return new SimpleIoC(config).refresh();
+    }
+}
@@ -0,0 +1,30 @@
+package benchmark;
+
+import ioc.SimpleIoC;
+import org.openjdk.jmh.annotations.*;
+import pizza.PizzaConfig;
+
+import java.util.concurrent.TimeUnit;
+
+// every thread of the group races for the same cold pizzaService chain of a fresh container
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 1000)
+@Measurement(iterations = 10000)
+@Fork(1)
+@State(Scope.Group)
+public class ContendedColdGetBeanBenchmark {
+    SimpleIoC simpleIoC;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        simpleIoC = new SimpleIoC(new PizzaConfig());
+    }
+
+    @Benchmark
+    @Group("coldBean")
+    @GroupThreads(4)
+    public Object coldBeanContended() {
+        return simpleIoC.getBean("pizzaService");
+    }
+}
@@ -0,0 +1,55 @@
+package benchmark;
+
+import ioc.SimpleIoC;
+import org.openjdk.jmh.annotations.*;
+import pizza.PizzaConfig;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GetBeanBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class WarmContainer {
+        SimpleIoC simpleIoC;
+
+        @Setup
+        public void setUp() {
+            simpleIoC = new SimpleIoC(new PizzaConfig());
+            simpleIoC.getBean("pizzaService");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ColdContainer {
+        SimpleIoC simpleIoC;
+
+        @Setup(Level.Invocation)
+        public void setUp() {
+            simpleIoC = new SimpleIoC(new PizzaConfig());
+        }
+    }
+
+    @Benchmark
+    public Object warmBean(WarmContainer container) {
+        return container.simpleIoC.getBean("pizzaService");
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Object warmBeanContended(WarmContainer container) {
+        return container.simpleIoC.getBean("pizzaService");
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1000)
+    @Measurement(iterations = 10000)
+    public Object coldBeanWithDependencyChain(ColdContainer container) {
+        return container.simpleIoC.getBean("pizzaService");
+    }
+}
@@ -0,0 +1,43 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import pizza.dao.OrderDaoImpl;
+import pizza.repo.OrderRepo;
+import pizza.repository.Order;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.repository.User;
+import pizza.service.OrderService;
+import pizza.service.OrderServiceImpl;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OrderPlacementBenchmark {
+    private final User user = new User(2, "Jack", "Jackson");
+    private final Pizza hawaii = new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100);
+    private final Pizza cheese = new Pizza(2, "Cheese", PizzaType.PIZZA_TWO, 150);
+
+    private OrderService orderService;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        orderService = new OrderServiceImpl(new OrderDaoImpl(new OrderRepo()));
+    }
+
+    @Benchmark
+    public Order placeOrder() {
+        return orderService.placeOrder(user, hawaii, cheese);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public Order placeOrderContended() {
+        return orderService.placeOrder(user, hawaii, cheese);
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import proxy.BenchmarkProxyHandler;
+import proxy.SubclassProxyFactory;
+
+import java.lang.reflect.Proxy;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ProxyDispatchBenchmark {
+
+    public interface Calculator {
+        int add(int a, int b);
+        int timedAdd(int a, int b);
+    }
+
+    public static class CalculatorBean implements Calculator {
+        @Override
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        @Override
+        @ioc.Benchmark
+        public int timedAdd(int a, int b) {
+            return a + b;
+        }
+    }
+
+    private Calculator direct;
+    private Calculator proxied;
+    private Calculator subclassProxied;
+    private int a = 1;
+    private int b = 2;
+
+    @Setup
+    public void setUp() {
+        direct = new CalculatorBean();
+        Class<?>[] interfaces = {Calculator.class};
+        proxied = (Calculator) Proxy.newProxyInstance(Calculator.class.getClassLoader(), interfaces,
+                new BenchmarkProxyHandler(new CalculatorBean(), interfaces));
+        subclassProxied = SubclassProxyFactory.createProxy(new CalculatorBean(), new ConcurrentHashMap<>());
+    }
+
+    @Benchmark
+    public int directCall() {
+        return direct.add(a, b);
+    }
+
+    @Benchmark
+    public int proxyPassThrough() {
+        return proxied.add(a, b);
+    }
+
+    @Benchmark
+    public int proxyTimed() {
+        return proxied.timedAdd(a, b);
+    }
+
+    @Benchmark
+    public int subclassProxyPassThrough() {
+        return subclassProxied.add(a, b);
+    }
+
+    @Benchmark
+    public int subclassProxyTimed() {
+        return subclassProxied.timedAdd(a, b);
+    }
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import ioc.SimpleIoC;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import pizza.PizzaConfig;
+
+import java.util.concurrent.TimeUnit;
+
+// the same pizza wiring, once through Spring's serviceContext.xml and once through SimpleIoC
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpringComparisonBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class WarmContainers {
+        ClassPathXmlApplicationContext spring;
+        SimpleIoC simpleIoC;
+
+        @Setup
+        public void setUp() {
+            spring = new ClassPathXmlApplicationContext("serviceContext.xml");
+            simpleIoC = new SimpleIoC(new PizzaConfig());
+            simpleIoC.getBean("pizzaService");
+        }
+
+        @TearDown
+        public void tearDown() {
+            spring.close();
+        }
+    }
+
+    @Benchmark
+    public Object springStartup() {
+        try (ClassPathXmlApplicationContext context = new ClassPathXmlApplicationContext("serviceContext.xml")) {
+            return context.getBean("pizzaService");
+        }
+    }
+
+    @Benchmark
+    public Object simpleIoCStartup() {
+        return new SimpleIoC(new PizzaConfig()).getBean("pizzaService");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object springWarmGetBean(WarmContainers containers) {
+        return containers.spring.getBean("pizzaService");
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Object simpleIoCWarmGetBean(WarmContainers containers) {
+        return containers.simpleIoC.getBean("pizzaService");
+    }
+}
@@ -0,0 +1,139 @@
+package ioc;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.CompletionStage;
+
+public class AotConfigGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 3) {
+            throw new IllegalArgumentException("Usage: AotConfigGenerator <config class> <generated class> <output directory>");
+        }
+        Config config = (Config) Class.forName(args[0]).getConstructor().newInstance();
+        String generatedClassName = args[1];
+
+        Path source = Paths.get(args[2], generatedClassName.replace('.', '/') + ".java");
+        Files.createDirectories(source.getParent());
+        Files.write(source, new AotConfigGenerator().generate(config, generatedClassName, args[0]).getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    public String generate(Config config, String generatedClassName, String origin) throws IllegalAccessException {
+        int packageEnd = generatedClassName.lastIndexOf('.');
+        String packageName = (packageEnd < 0) ? null : generatedClassName.substring(0, packageEnd);
+        String simpleClassName = generatedClassName.substring(packageEnd + 1);
+        List<String> beanNames = config.beanNames();
+        BeanTypeIndex typeIndex = BeanTypeIndex.of(config);
+
+        StringBuilder source = new StringBuilder();
+        if (packageName != null) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import ioc.BeanDefinition;\n")
+                .append("import ioc.Config;\n")
+                .append("import ioc.GeneratedBeanDefinition;\n")
+                .append("import ioc.Scope;\n\n")
+                .append("import java.util.Arrays;\n")
+                .append("import java.util.Collections;\n")
+                .append("import java.util.List;\n\n")
+                .append("// generated by ioc.AotConfigGenerator from ").append(origin).append(", do not edit\n")
+                .append("public final class ").append(simpleClassName).append(" implements Config {\n")
+                .append("    private static final List<String> BEAN_NAMES = Collections.unmodifiableList(Arrays.asList(")
+                .append(joinLiterals(beanNames.toArray(new String[0]))).append("));\n\n")
+                .append("    @Override\n")
+                .append("    public List<String> beanNames() {\n")
+                .append("        return BEAN_NAMES;\n")
+                .append("    }\n\n")
+                .append("    @Override\n")
+                .append("    public BeanDefinition beanDefinition(String beanName) {\n")
+                .append("        switch (beanName) {\n");
+        for (String beanName : beanNames) {
+            BeanDefinition beanDefinition = config.beanDefinition(beanName);
+            if (beanDefinition.getConstructorArguments() != null || beanDefinition.getFactoryMethodName() != null
+                    || !BeanDefinition.DEFAULT_INIT_METHOD.equals(beanDefinition.getInitMethodName())) {
+                throw new IllegalArgumentException("Bean '" + beanName + "' is not autowired, which generated code does not support");
+            }
+            appendBeanDefinition(source, BeanCreationPlan.compile(beanDefinition, typeIndex));
+        }
+        source.append("            default:\n")
+                .append("                return null;\n")
+                .append("        }\n")
+                .append("    }\n")
+                .append("}\n");
+        return source.toString();
+    }
+
+
+    private void appendBeanDefinition(StringBuilder source, BeanCreationPlan plan) throws IllegalAccessException {
+        String beanClassName = accessibleClassName(plan.getBeanClass());
+        // the same constructor the plan autowires, the generated call picks it by its parameter types
+        if (!Modifier.isPublic(plan.getMetadata().getAutowiredConstructor().getConstructor().getModifiers())) {
+            throw new IllegalArgumentException("The constructor of " + beanClassName + " must be public to be called from generated code");
+        }
+        Class<?>[] dependencyTypes = plan.getDependencyTypes();
+
+        StringJoiner dependencyTypeLiterals = new StringJoiner(", ");
+        StringJoiner constructorArguments = new StringJoiner(", ");
+        for (int index = 0; index < dependencyTypes.length; index++) {
+            String dependencyTypeName = accessibleClassName(dependencyTypes[index]);
+            dependencyTypeLiterals.add(dependencyTypeName + ".class");
+            constructorArguments.add("(" + dependencyTypeName + ") dependencies[" + index + "]");
+        }
+
+        source.append("            case \"").append(plan.getBeanName()).append("\":\n")
+                .append("                return new GeneratedBeanDefinition(\"").append(plan.getBeanName()).append("\", ")
+                .append(beanClassName).append(".class,\n")
+                .append("                        new String[]{").append(joinLiterals(plan.getDependencyNames())).append("},\n")
+                .append("                        new Class<?>[]{").append(dependencyTypeLiterals).append("},\n")
+                .append("                        dependencies -> new ").append(beanClassName)
+                .append("(").append(constructorArguments).append("),\n")
+                .append("                        ").append(initMethodLambda(plan, beanClassName)).append(",\n")
+                .append("                        ").append(plan.isBenchmarked()).append(",\n")
+                .append("                        Scope.").append(plan.getScope().name()).append(");\n");
+    }
+
+
+    private String initMethodLambda(BeanCreationPlan plan, String beanClassName) {
+        if (!plan.hasInitMethod()) {
+            return "null";
+        }
+        Method initMethod = plan.getMetadata().findInitMethod(BeanDefinition.DEFAULT_INIT_METHOD);
+        if (!Modifier.isPublic(initMethod.getModifiers())) {
+            throw new IllegalArgumentException("init() of " + beanClassName + " must be public to be called from generated code");
+        }
+        if (CompletionStage.class.isAssignableFrom(initMethod.getReturnType())) {
+            throw new IllegalArgumentException("init() of " + beanClassName + " is asynchronous, which generated code does not support");
+        }
+        return "bean -> ((" + beanClassName + ") bean).init()";
+    }
+
+
+    private String accessibleClassName(Class<?> clazz) {
+        Class<?> componentType = clazz;
+        while (componentType.isArray()) {
+            componentType = componentType.getComponentType();
+        }
+        for (Class<?> enclosing = componentType; enclosing != null; enclosing = enclosing.getEnclosingClass()) {
+            if (!enclosing.isPrimitive() && !Modifier.isPublic(enclosing.getModifiers())) {
+                throw new IllegalArgumentException(clazz.getName() + " must be public to be referenced from generated code");
+            }
+        }
+        return clazz.getCanonicalName();
+    }
+
+
+    private static String joinLiterals(String[] values) {
+        StringJoiner literals = new StringJoiner(", ");
+        for (String value : values) {
+            literals.add("\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"");
+        }
+        return literals.toString();
+    }
+}
@@ -0,0 +1,526 @@
+package ioc;
+
+import org.apache.commons.lang3.ClassUtils;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Executable;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.UndeclaredThrowableException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+
+final class BeanCreationPlan {
+    private static final MethodType INSTANTIATOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final String beanName;
+    private final Class<?> beanClass;
+    private final String[] dependencyNames;
+    private final Class<?>[] dependencyTypes;
+    private final Instantiator instantiator;
+    private final NoArgumentsInstantiator noArgumentsInstantiator;
+    private final Initializer initializer;
+    private final ClassMetadata metadata;
+    private final BeanPostProcessor[] beforeInitProcessors;
+    private final BeanPostProcessor[] afterInitProcessors;
+    private final Scope scope;
+
+    private BeanCreationPlan(String beanName, Class<?> beanClass, String[] dependencyNames, Class<?>[] dependencyTypes,
+                             Instantiator instantiator, NoArgumentsInstantiator noArgumentsInstantiator,
+                             Initializer initializer, ClassMetadata metadata, Scope scope,
+                             List<BeanPostProcessor> postProcessors) {
+        this.beanName = beanName;
+        this.beanClass = beanClass;
+        this.dependencyNames = dependencyNames;
+        this.dependencyTypes = dependencyTypes;
+        this.instantiator = instantiator;
+        this.noArgumentsInstantiator = noArgumentsInstantiator;
+        this.initializer = initializer;
+        this.metadata = metadata;
+        this.scope = scope;
+
+        // init() runs after the before-init hooks of all other processors and before any after-init hook
+        List<BeanPostProcessor> applicableProcessors = new ArrayList<>();
+        for (BeanPostProcessor postProcessor : postProcessors) {
+            if (postProcessor.appliesTo(metadata)) {
+                applicableProcessors.add(postProcessor);
+            }
+        }
+        List<BeanPostProcessor> beforeInitProcessors = new ArrayList<>();
+        List<BeanPostProcessor> afterInitProcessors = new ArrayList<>();
+        for (BeanPostProcessor postProcessor : applicableProcessors) {
+            if (overrides(postProcessor, "postProcessBeforeInit")) {
+                beforeInitProcessors.add(postProcessor);
+            }
+            if (overrides(postProcessor, "postProcessAfterInit")) {
+                afterInitProcessors.add(postProcessor);
+            }
+        }
+        if (initializer != null) {
+            beforeInitProcessors.add(new InitMethodPostProcessor(initializer));
+        }
+        this.beforeInitProcessors = beforeInitProcessors.toArray(new BeanPostProcessor[0]);
+        this.afterInitProcessors = afterInitProcessors.toArray(new BeanPostProcessor[0]);
+    }
+
+
+    private static boolean overrides(BeanPostProcessor postProcessor, String hookName) {
+        try {
+            return postProcessor.getClass().getMethod(hookName, Object.class, String.class).getDeclaringClass()
+                    != BeanPostProcessor.class;
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    static BeanCreationPlan compile(BeanDefinition beanDefinition) throws IllegalAccessException {
+        return compile(beanDefinition, BeanTypeIndex.EMPTY);
+    }
+
+
+    static BeanCreationPlan compile(BeanDefinition beanDefinition, BeanTypeIndex typeIndex) throws IllegalAccessException {
+        return compile(beanDefinition, typeIndex, Collections.emptyList());
+    }
+
+
+    static BeanCreationPlan compile(BeanDefinition beanDefinition, BeanTypeIndex typeIndex,
+                                    List<BeanPostProcessor> postProcessors) throws IllegalAccessException {
+        if (beanDefinition instanceof PrecompiledBeanDefinition) {
+            return fromPrecompiledDefinition((PrecompiledBeanDefinition) beanDefinition, postProcessors);
+        }
+        if (beanDefinition.getConstructorArguments() != null || beanDefinition.getFactoryMethodName() != null) {
+            return compileWithExplicitArguments(beanDefinition, typeIndex, postProcessors);
+        }
+
+        Class<?> beanClass = beanDefinition.getBeanClass();
+        ClassMetadata metadata = ClassMetadata.of(beanClass);
+        ClassMetadata.AutowiredConstructor constructor = metadata.getAutowiredConstructor();
+        String[] dependencyNames = new String[constructor.getParameterCount()];
+        for (int index = 0; index < dependencyNames.length; index++) {
+            dependencyNames[index] = typeIndex.resolveDependency(beanDefinition.getBeanName(), constructor.getParameterType(index),
+                    constructor.getQualifier(index), constructor.getNameFromType(index));
+        }
+        MethodHandle constructorHandle = constructor.getHandle();
+
+        return new BeanCreationPlan(beanDefinition.getBeanName(), beanClass, dependencyNames, constructor.getParameterTypes(),
+                arguments -> (Object) constructorHandle.invokeExact(arguments),
+                findNoArgumentsConstructor(metadata), findInitMethod(metadata, beanDefinition.getInitMethodName()),
+                metadata, beanDefinition.getScope(), postProcessors);
+    }
+
+
+    private static BeanCreationPlan fromPrecompiledDefinition(PrecompiledBeanDefinition beanDefinition,
+                                                              List<BeanPostProcessor> postProcessors) {
+        Initializer initializer = null;
+        if (beanDefinition.hasInitMethod()) {
+            initializer = bean -> {
+                beanDefinition.init(bean);
+                return null;
+            };
+        }
+        // the generated definition already knows whether the class has methods the proxy handles
+        ClassMetadata metadata = ClassMetadata.precomputed(beanDefinition.getBeanClass(), beanDefinition.isBenchmarked()
+                ? BenchmarkProxyPostProcessor.PROXIED_ANNOTATIONS : Collections.emptySet());
+        return new BeanCreationPlan(beanDefinition.getBeanName(), beanDefinition.getBeanClass(),
+                beanDefinition.getDependencyNames(), beanDefinition.getDependencyTypes(),
+                beanDefinition::newInstance, null, initializer, metadata,
+                beanDefinition.getScope(), postProcessors);
+    }
+
+
+    private static BeanCreationPlan compileWithExplicitArguments(BeanDefinition beanDefinition, BeanTypeIndex typeIndex,
+                                                                 List<BeanPostProcessor> postProcessors)
+            throws IllegalAccessException {
+        List<ConstructorArgument> arguments = orderArguments(beanDefinition);
+        Executable executable = findExecutable(beanDefinition, arguments, typeIndex);
+        executable.setAccessible(true);
+        boolean constructor = executable instanceof Constructor;
+        Class<?> beanClass = constructor ? beanDefinition.getBeanClass() : ((Method) executable).getReturnType();
+        ClassMetadata metadata = ClassMetadata.of(beanClass);
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        MethodHandle handle = constructor
+                ? lookup.unreflectConstructor((Constructor<?>) executable) : lookup.unreflect((Method) executable);
+
+        // the invocation arguments are a copy of the converted values with the referenced beans filled in
+        int offset = (beanDefinition.getFactoryBeanName() == null) ? 0 : 1;
+        Object[] invocationTemplate = new Object[offset + arguments.size()];
+        List<String> dependencyNames = new ArrayList<>();
+        List<Class<?>> dependencyTypes = new ArrayList<>();
+        List<Integer> dependencyPositions = new ArrayList<>();
+        if (offset == 1) {
+            dependencyNames.add(beanDefinition.getFactoryBeanName());
+            dependencyTypes.add(executable.getDeclaringClass());
+            dependencyPositions.add(0);
+        }
+        Class<?>[] parameterTypes = executable.getParameterTypes();
+        for (int index = 0; index < arguments.size(); index++) {
+            ConstructorArgument argument = arguments.get(index);
+            if (argument.getRef() != null) {
+                dependencyNames.add(argument.getRef());
+                dependencyTypes.add(parameterTypes[index]);
+                dependencyPositions.add(offset + index);
+            } else {
+                invocationTemplate[offset + index] = convertValue(argument.getValue(), parameterTypes[index]);
+            }
+        }
+        int[] positions = dependencyPositions.stream().mapToInt(Integer::intValue).toArray();
+        MethodHandle invocationHandle = handle.asFixedArity()
+                .asSpreader(Object[].class, invocationTemplate.length)
+                .asType(INSTANTIATOR_TYPE);
+        Class<?> factoryClass = executable.getDeclaringClass();
+
+        return new BeanCreationPlan(beanDefinition.getBeanName(), beanClass, dependencyNames.toArray(new String[0]),
+                dependencyTypes.toArray(new Class<?>[0]),
+                dependencies -> {
+                    Object[] invocationArguments = invocationTemplate.clone();
+                    for (int index = 0; index < positions.length; index++) {
+                        invocationArguments[positions[index]] = dependencies[index];
+                    }
+                    // the container keeps the class of its own factory beans, only one from a parent may have lost it
+                    if (offset == 1 && !factoryClass.isInstance(invocationArguments[0])) {
+                        throw new IllegalStateException("Factory bean '" + beanDefinition.getFactoryBeanName()
+                                + "' of bean '" + beanDefinition.getBeanName() + "' is not a " + factoryClass.getName());
+                    }
+                    return (Object) invocationHandle.invokeExact(invocationArguments);
+                },
+                constructor ? findNoArgumentsConstructor(metadata) : null,
+                findInitMethod(metadata, beanDefinition.getInitMethodName()),
+                metadata, beanDefinition.getScope(), postProcessors);
+    }
+
+
+    private static List<ConstructorArgument> orderArguments(BeanDefinition beanDefinition) {
+        List<ConstructorArgument> declaredArguments = (beanDefinition.getConstructorArguments() == null)
+                ? new ArrayList<>() : beanDefinition.getConstructorArguments();
+        ConstructorArgument[] arguments = new ConstructorArgument[declaredArguments.size()];
+        for (ConstructorArgument argument : declaredArguments) {
+            if (argument.getIndex() >= 0) {
+                if (argument.getIndex() >= arguments.length || arguments[argument.getIndex()] != null) {
+                    throw new IllegalArgumentException("Bean '" + beanDefinition.getBeanName()
+                            + "' has an invalid constructor argument index " + argument.getIndex());
+                }
+                arguments[argument.getIndex()] = argument;
+            }
+        }
+        int nextIndex = 0;
+        for (ConstructorArgument argument : declaredArguments) {
+            if (argument.getIndex() < 0) {
+                while (arguments[nextIndex] != null) {
+                    nextIndex++;
+                }
+                arguments[nextIndex] = argument;
+            }
+        }
+        List<ConstructorArgument> orderedArguments = new ArrayList<>();
+        for (ConstructorArgument argument : arguments) {
+            orderedArguments.add(argument);
+        }
+        return orderedArguments;
+    }
+
+
+    private static Executable findExecutable(BeanDefinition beanDefinition, List<ConstructorArgument> arguments,
+                                             BeanTypeIndex typeIndex) {
+        String factoryBeanName = beanDefinition.getFactoryBeanName();
+        String factoryMethodName = beanDefinition.getFactoryMethodName();
+        Class<?> targetClass = (factoryBeanName == null) ? beanDefinition.getBeanClass() : typeIndex.beanClassOf(factoryBeanName);
+        if (targetClass == null) {
+            throw new IllegalArgumentException("Bean '" + beanDefinition.getBeanName() + "' needs a class"
+                    + ((factoryBeanName == null) ? "" : ", which is taken from its factory bean '" + factoryBeanName + "'"));
+        }
+
+        Set<Executable> candidates = new LinkedHashSet<>();
+        if (factoryMethodName == null) {
+            for (Constructor<?> constructor : ClassMetadata.of(targetClass).getConstructors()) {
+                candidates.add(constructor);
+            }
+        } else {
+            List<Method> methods = new ArrayList<>();
+            for (Method method : targetClass.getMethods()) {
+                methods.add(method);
+            }
+            for (Method method : targetClass.getDeclaredMethods()) {
+                methods.add(method);
+            }
+            for (Method method : methods) {
+                if (method.getName().equals(factoryMethodName)
+                        && Modifier.isStatic(method.getModifiers()) == (factoryBeanName == null)) {
+                    candidates.add(method);
+                }
+            }
+        }
+        for (Executable candidate : candidates) {
+            if (candidate.getParameterCount() == arguments.size()
+                    && argumentsMatch(candidate.getParameterTypes(), arguments, typeIndex)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("No " + ((factoryMethodName == null) ? "constructor" : "factory method '" + factoryMethodName + "'")
+                + " of " + targetClass.getName() + " matches the " + arguments.size()
+                + " constructor arguments of bean '" + beanDefinition.getBeanName() + "'");
+    }
+
+
+    private static boolean argumentsMatch(Class<?>[] parameterTypes, List<ConstructorArgument> arguments, BeanTypeIndex typeIndex) {
+        for (int index = 0; index < parameterTypes.length; index++) {
+            Class<?> parameterType = ClassUtils.primitiveToWrapper(parameterTypes[index]);
+            ConstructorArgument argument = arguments.get(index);
+            if (argument.getType() != null && !argument.getType().equals(parameterTypes[index].getName())
+                    && !argument.getType().equals(parameterType.getName())) {
+                return false;
+            }
+            if (argument.getRef() != null) {
+                Class<?> referencedClass = typeIndex.beanClassOf(argument.getRef());
+                if (referencedClass != null && !parameterType.isAssignableFrom(referencedClass)) {
+                    return false;
+                }
+            } else {
+                try {
+                    convertValue(argument.getValue(), parameterTypes[index]);
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object convertValue(String value, Class<?> type) {
+        Class<?> targetType = ClassUtils.primitiveToWrapper(type);
+        if (value == null) {
+            if (type.isPrimitive()) {
+                throw new IllegalArgumentException("null cannot be converted to " + type.getName());
+            }
+            return null;
+        }
+        if (targetType == String.class || targetType == Object.class || targetType == CharSequence.class) {
+            return value;
+        }
+        if (targetType == Character.class && value.length() == 1) {
+            return value.charAt(0);
+        }
+        if (targetType.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) targetType, value);
+        }
+        if (Number.class.isAssignableFrom(targetType) || targetType == Boolean.class) {
+            try {
+                return targetType.getMethod("valueOf", String.class).invoke(null, value);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("'" + value + "' cannot be converted to " + type.getName(), e);
+            }
+        }
+        throw new IllegalArgumentException("'" + value + "' cannot be converted to " + type.getName());
+    }
+
+
+    private static NoArgumentsInstantiator findNoArgumentsConstructor(ClassMetadata metadata) throws IllegalAccessException {
+        MethodHandle constructorHandle = metadata.getNoArgumentsConstructor();
+        if (constructorHandle == null) {
+            return null;
+        }
+        return () -> (Object) constructorHandle.invokeExact();
+    }
+
+
+    private static Initializer findInitMethod(ClassMetadata metadata, String initMethodName) throws IllegalAccessException {
+        if (initMethodName == null) {
+            return null;
+        }
+        MethodHandle initHandle = metadata.getInitMethod(initMethodName);
+        if (initHandle == null) {
+            // the conventional init() is optional, an init method that is named explicitly is not
+            if (BeanDefinition.DEFAULT_INIT_METHOD.equals(initMethodName)) {
+                return null;
+            }
+            throw new IllegalArgumentException("Init method '" + initMethodName + "' not found in " + metadata.getBeanClass().getName());
+        }
+        return bean -> (Object) initHandle.invokeExact(bean);
+    }
+
+
+    String getBeanName() {
+        return beanName;
+    }
+
+
+    Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+
+    ClassMetadata getMetadata() {
+        return metadata;
+    }
+
+
+    String[] getDependencyNames() {
+        return dependencyNames;
+    }
+
+
+    Class<?>[] getDependencyTypes() {
+        return dependencyTypes;
+    }
+
+
+    boolean canInstantiateWithoutDependencies() {
+        return noArgumentsInstantiator != null;
+    }
+
+
+    boolean hasInitMethod() {
+        return initializer != null;
+    }
+
+
+    // true for any method the benchmark proxy handles, including @Cached and @CacheEvict
+    boolean isBenchmarked() {
+        return BenchmarkProxyPostProcessor.isProxied(metadata);
+    }
+
+
+    boolean hasPostProcessors() {
+        return beforeInitProcessors.length > 0 || afterInitProcessors.length > 0;
+    }
+
+
+    Scope getScope() {
+        return scope;
+    }
+
+
+    Object instantiate(Object[] arguments) throws Exception {
+        try {
+            return instantiator.newInstance(arguments);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+
+    Object instantiateWithoutDependencies() throws Exception {
+        try {
+            return noArgumentsInstantiator.newInstance();
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+
+    Object postProcessBeforeInit(Object bean) throws Exception {
+        for (BeanPostProcessor postProcessor : beforeInitProcessors) {
+            bean = postProcessor.postProcessBeforeInit(bean, beanName);
+        }
+        return bean;
+    }
+
+
+    // like postProcessBeforeInit, but an init method returning a CompletionStage is not waited for
+    CompletableFuture<Object> postProcessBeforeInitAsync(Object bean) throws Exception {
+        int processorCount = beforeInitProcessors.length - ((initializer == null) ? 0 : 1);
+        for (int index = 0; index < processorCount; index++) {
+            bean = beforeInitProcessors[index].postProcessBeforeInit(bean, beanName);
+        }
+        if (initializer == null) {
+            return CompletableFuture.completedFuture(bean);
+        }
+        Object initialization = init(initializer, bean);
+        if (!(initialization instanceof CompletionStage)) {
+            return CompletableFuture.completedFuture(bean);
+        }
+        return completionOf((CompletionStage<?>) initialization, bean);
+    }
+
+
+    Object postProcessAfterInit(Object bean) throws Exception {
+        for (BeanPostProcessor postProcessor : afterInitProcessors) {
+            bean = postProcessor.postProcessAfterInit(bean, beanName);
+        }
+        return bean;
+    }
+
+
+    private interface Instantiator {
+        Object newInstance(Object[] arguments) throws Throwable;
+    }
+
+
+    private interface NoArgumentsInstantiator {
+        Object newInstance() throws Throwable;
+    }
+
+
+    private interface Initializer {
+        Object init(Object bean) throws Throwable;
+    }
+
+
+    private static CompletableFuture<Object> completionOf(CompletionStage<?> initialization, Object bean) {
+        CompletableFuture<Object> initialized = new CompletableFuture<>();
+        initialization.whenComplete((ignored, failure) -> {
+            if (failure == null) {
+                initialized.complete(bean);
+            } else {
+                initialized.completeExceptionally(failure);
+            }
+        });
+        return initialized;
+    }
+
+
+    private static Object init(Initializer initializer, Object bean) throws Exception {
+        try {
+            return initializer.init(bean);
+        } catch (Exception | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new UndeclaredThrowableException(t);
+        }
+    }
+
+
+    private static final class InitMethodPostProcessor implements BeanPostProcessor {
+        private final Initializer initializer;
+
+        private InitMethodPostProcessor(Initializer initializer) {
+            this.initializer = initializer;
+        }
+
+        @Override
+        public boolean appliesTo(ClassMetadata beanClass) {
+            return true;
+        }
+
+        @Override
+        public Object postProcessBeforeInit(Object bean, String beanName) throws Exception {
+            Object initialization = init(initializer, bean);
+            if (initialization instanceof CompletionStage) {
+                try {
+                    completionOf((CompletionStage<?>) initialization, bean).join();
+                } catch (CompletionException e) {
+                    if (e.getCause() instanceof Exception) {
+                        throw (Exception) e.getCause();
+                    }
+                    throw e;
+                }
+            }
+            return bean;
+        }
+    }
+}
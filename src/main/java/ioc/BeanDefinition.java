@@ -1,6 +1,31 @@
 package ioc;
 
+import java.util.List;
+
 public interface BeanDefinition {
+    String DEFAULT_INIT_METHOD = "init";
+
     String getBeanName();
     Class<?> getBeanClass();
+
+    default Scope getScope() {
+        return Scope.SINGLETON;
+    }
+
+    // null means the first constructor is autowired by parameter type
+    default List<ConstructorArgument> getConstructorArguments() {
+        return null;
+    }
+
+    default String getInitMethodName() {
+        return DEFAULT_INIT_METHOD;
+    }
+
+    default String getFactoryBeanName() {
+        return null;
+    }
+
+    default String getFactoryMethodName() {
+        return null;
+    }
 }
@@ -0,0 +1,48 @@
+package ioc;
+
+import proxy.LatencySnapshot;
+import proxy.MethodStatistics;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class BeanMetrics {
+    static final BeanMetrics EMPTY = new BeanMetrics(new ConcurrentHashMap<>());
+
+    private final ConcurrentMap<String, MethodStatistics> methods;
+
+    BeanMetrics(ConcurrentMap<String, MethodStatistics> methods) {
+        this.methods = methods;
+    }
+
+    ConcurrentMap<String, MethodStatistics> statistics() {
+        return methods;
+    }
+
+    public Map<String, MethodStatistics> methods() {
+        return Collections.unmodifiableMap(methods);
+    }
+
+    public MethodStatistics method(String methodSignature) {
+        return methods.get(methodSignature);
+    }
+
+    public Map<String, LatencySnapshot> snapshot() {
+        Map<String, LatencySnapshot> snapshots = new LinkedHashMap<>();
+        for (Map.Entry<String, MethodStatistics> method : methods.entrySet()) {
+            snapshots.put(method.getKey(), method.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    public Map<String, LatencySnapshot> snapshotAndReset() {
+        Map<String, LatencySnapshot> snapshots = new LinkedHashMap<>();
+        for (Map.Entry<String, MethodStatistics> method : methods.entrySet()) {
+            snapshots.put(method.getKey(), method.getValue().snapshotAndReset());
+        }
+        return snapshots;
+    }
+}
@@ -0,0 +1,13 @@
+package ioc;
+
+public interface BeanPostProcessor {
+    boolean appliesTo(ClassMetadata beanClass);
+
+    default Object postProcessBeforeInit(Object bean, String beanName) throws Exception {
+        return bean;
+    }
+
+    default Object postProcessAfterInit(Object bean, String beanName) throws Exception {
+        return bean;
+    }
+}
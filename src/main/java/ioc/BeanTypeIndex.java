@@ -0,0 +1,69 @@
+package ioc;
+
+import java.util.*;
+
+final class BeanTypeIndex {
+    static final BeanTypeIndex EMPTY = new BeanTypeIndex(Collections.emptyMap(), Collections.emptyMap(), null);
+
+    private final Map<Class<?>, List<String>> beanNamesByType;
+    private final Map<String, Class<?>> beanClasses;
+    private final BeanTypeIndex parent;
+
+    private BeanTypeIndex(Map<Class<?>, List<String>> beanNamesByType, Map<String, Class<?>> beanClasses, BeanTypeIndex parent) {
+        this.beanNamesByType = beanNamesByType;
+        this.beanClasses = beanClasses;
+        this.parent = parent;
+    }
+
+    static BeanTypeIndex of(Config config) {
+        return of(config, null);
+    }
+
+    // the parent index is consulted for types and names the config does not define, it is never copied
+    static BeanTypeIndex of(Config config, BeanTypeIndex parent) {
+        Map<Class<?>, List<String>> beanNamesByType = new HashMap<>();
+        Map<String, Class<?>> beanClasses = new HashMap<>();
+        for (String beanName : config.beanNames()) {
+            BeanDefinition beanDefinition = config.beanDefinition(beanName);
+            if (beanDefinition == null || beanDefinition.getBeanClass() == null) {
+                continue;
+            }
+            beanClasses.put(beanName, beanDefinition.getBeanClass());
+            for (Class<?> type : ClassMetadata.of(beanDefinition.getBeanClass()).getAssignableTypes()) {
+                beanNamesByType.computeIfAbsent(type, key -> new ArrayList<>(1)).add(beanName);
+            }
+        }
+        return new BeanTypeIndex(beanNamesByType, beanClasses, parent);
+    }
+
+    List<String> beanNamesOf(Class<?> type) {
+        List<String> beanNames = beanNamesByType.get(type);
+        if (beanNames != null) {
+            return beanNames;
+        }
+        return (parent == null) ? Collections.emptyList() : parent.beanNamesOf(type);
+    }
+
+    Class<?> beanClassOf(String beanName) {
+        Class<?> beanClass = beanClasses.get(beanName);
+        if (beanClass != null || parent == null) {
+            return beanClass;
+        }
+        return parent.beanClassOf(beanName);
+    }
+
+    String resolveDependency(String beanName, Class<?> type, String qualifier, String nameFromType) {
+        if (qualifier != null) {
+            return qualifier;
+        }
+        List<String> candidates = beanNamesOf(type);
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        if (candidates.isEmpty() || candidates.contains(nameFromType)) {
+            return nameFromType;
+        }
+        throw new IllegalArgumentException("Bean '" + beanName + "' depends on " + type.getName()
+                + ", which is ambiguous between " + candidates + ", use @Qualifier to choose one");
+    }
+}
@@ -0,0 +1,65 @@
+package ioc;
+
+import proxy.BenchmarkProxyHandler;
+import proxy.SubclassProxyFactory;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+final class BenchmarkProxyPostProcessor implements BeanPostProcessor {
+    static final Set<Class<? extends Annotation>> PROXIED_ANNOTATIONS = Collections.unmodifiableSet(
+            new LinkedHashSet<>(Arrays.asList(Benchmark.class, Cached.class, CacheEvict.class)));
+
+    private final ContainerMetrics metrics;
+    private volatile ProxyMode proxyMode = ProxyMode.INTERFACE;
+    private volatile Set<String> factoryBeanNames = Collections.emptySet();
+
+    BenchmarkProxyPostProcessor(ContainerMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    void setProxyMode(ProxyMode proxyMode) {
+        this.proxyMode = proxyMode;
+    }
+
+    // beans that other beans are created from by a factory method, which need not be on any of their interfaces
+    void setFactoryBeanNames(Set<String> factoryBeanNames) {
+        this.factoryBeanNames = factoryBeanNames;
+    }
+
+    @Override
+    public boolean appliesTo(ClassMetadata beanClass) {
+        return isProxied(beanClass);
+    }
+
+    static boolean isProxied(ClassMetadata beanClass) {
+        for (Class<? extends Annotation> annotation : PROXIED_ANNOTATIONS) {
+            if (beanClass.hasMethodAnnotatedWith(annotation)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // interface proxies by default; a bean without interfaces, a factory bean, or any bean in SUBCLASS mode gets
+    // a subclass proxy instead, so its factory methods are called through the proxy too. A bean that allows neither
+    // is not proxied at all, and neither is a factory bean that can't be subclassed
+    @Override
+    public Object postProcessAfterInit(Object bean, String beanName) {
+        Class<?>[] interfaces = bean.getClass().getInterfaces();
+        boolean factoryBean = factoryBeanNames.contains(beanName);
+        if ((proxyMode == ProxyMode.SUBCLASS || interfaces.length == 0 || factoryBean)
+                && SubclassProxyFactory.canProxy(bean.getClass())) {
+            return SubclassProxyFactory.createProxy(bean, metrics.statisticsOf(beanName), metrics.resultCaches());
+        }
+        if (interfaces.length == 0 || factoryBean) {
+            return bean;
+        }
+        BenchmarkProxyHandler handler = new BenchmarkProxyHandler(bean, interfaces, metrics.statisticsOf(beanName), metrics.resultCaches());
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(), interfaces, handler);
+    }
+}
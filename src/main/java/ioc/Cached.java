@@ -0,0 +1,16 @@
+package ioc;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Cached {
+    String value();
+
+    int maxSize() default 1000;
+
+    long ttlMillis() default 60_000;
+}
@@ -0,0 +1,17 @@
+package ioc;
+
+import java.util.Collections;
+import java.util.List;
+
+public class CircularDependencyException extends IllegalStateException {
+    private final List<String> cycle;
+
+    public CircularDependencyException(List<String> cycle) {
+        super("Circular dependency between beans: " + String.join(" -> ", cycle));
+        this.cycle = Collections.unmodifiableList(cycle);
+    }
+
+    public List<String> getCycle() {
+        return cycle;
+    }
+}
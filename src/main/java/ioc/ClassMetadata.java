@@ -0,0 +1,241 @@
+package ioc;
+
+import org.apache.commons.text.WordUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Parameter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// shared by all containers; ClassValue keeps the metadata with its class, so it never pins a class loader
+public final class ClassMetadata {
+    private static final ClassValue<ClassMetadata> CACHE = new ClassValue<ClassMetadata>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            return new ClassMetadata(type, collectAnnotatedMethods(type));
+        }
+    };
+
+    private static final MethodType INSTANTIATOR_TYPE = MethodType.methodType(Object.class, Object[].class);
+    private static final MethodType NO_ARGUMENTS_INSTANTIATOR_TYPE = MethodType.methodType(Object.class);
+    private static final MethodType INIT_METHOD_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    private final Class<?> beanClass;
+    private final Map<Class<? extends Annotation>, List<Method>> annotatedMethods;
+    private final ConcurrentMap<String, Optional<MethodHandle>> initMethods = new ConcurrentHashMap<>();
+
+    private volatile Constructor<?>[] constructors;
+    private volatile AutowiredConstructor autowiredConstructor;
+    private volatile Optional<MethodHandle> noArgumentsConstructor;
+    private volatile Set<Class<?>> assignableTypes;
+
+    private ClassMetadata(Class<?> beanClass, Map<Class<? extends Annotation>, List<Method>> annotatedMethods) {
+        this.beanClass = beanClass;
+        this.annotatedMethods = annotatedMethods;
+    }
+
+    static ClassMetadata of(Class<?> beanClass) {
+        return CACHE.get(beanClass);
+    }
+
+    static ClassMetadata precomputed(Class<?> beanClass, Set<Class<? extends Annotation>> methodAnnotations) {
+        Map<Class<? extends Annotation>, List<Method>> annotatedMethods = new HashMap<>();
+        for (Class<? extends Annotation> methodAnnotation : methodAnnotations) {
+            annotatedMethods.put(methodAnnotation, Collections.emptyList());
+        }
+        return new ClassMetadata(beanClass, annotatedMethods);
+    }
+
+    private static Map<Class<? extends Annotation>, List<Method>> collectAnnotatedMethods(Class<?> beanClass) {
+        Map<Class<? extends Annotation>, List<Method>> annotatedMethods = new HashMap<>();
+        for (Method method : beanClass.getDeclaredMethods()) {
+            for (Annotation annotation : method.getAnnotations()) {
+                annotatedMethods.computeIfAbsent(annotation.annotationType(), type -> new ArrayList<>()).add(method);
+            }
+        }
+        return annotatedMethods;
+    }
+
+    public Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    public Class<?>[] getInterfaces() {
+        return beanClass.getInterfaces();
+    }
+
+    public boolean isAssignableTo(Class<?> type) {
+        return type.isAssignableFrom(beanClass);
+    }
+
+    public boolean hasMethodAnnotatedWith(Class<? extends Annotation> annotation) {
+        return annotatedMethods.containsKey(annotation);
+    }
+
+    public List<Method> getMethodsAnnotatedWith(Class<? extends Annotation> annotation) {
+        return Collections.unmodifiableList(annotatedMethods.getOrDefault(annotation, Collections.emptyList()));
+    }
+
+
+    Constructor<?>[] getConstructors() {
+        Constructor<?>[] constructors = this.constructors;
+        if (constructors == null) {
+            constructors = beanClass.getDeclaredConstructors();
+            for (Constructor<?> constructor : constructors) {
+                try {
+                    constructor.setAccessible(true);
+                } catch (RuntimeException e) {
+                    // a closed module refuses this, its public constructors are usable anyway
+                }
+            }
+            this.constructors = constructors;
+        }
+        return constructors;
+    }
+
+
+    AutowiredConstructor getAutowiredConstructor() throws IllegalAccessException {
+        AutowiredConstructor autowiredConstructor = this.autowiredConstructor;
+        if (autowiredConstructor == null) {
+            autowiredConstructor = new AutowiredConstructor(getConstructors()[0]);
+            this.autowiredConstructor = autowiredConstructor;
+        }
+        return autowiredConstructor;
+    }
+
+
+    MethodHandle getNoArgumentsConstructor() throws IllegalAccessException {
+        Optional<MethodHandle> noArgumentsConstructor = this.noArgumentsConstructor;
+        if (noArgumentsConstructor == null) {
+            noArgumentsConstructor = Optional.empty();
+            for (Constructor<?> constructor : getConstructors()) {
+                if (constructor.getParameterCount() == 0) {
+                    noArgumentsConstructor = Optional.of(MethodHandles.lookup().unreflectConstructor(constructor)
+                            .asType(NO_ARGUMENTS_INSTANTIATOR_TYPE));
+                    break;
+                }
+            }
+            this.noArgumentsConstructor = noArgumentsConstructor;
+        }
+        return noArgumentsConstructor.orElse(null);
+    }
+
+
+    MethodHandle getInitMethod(String initMethodName) throws IllegalAccessException {
+        Optional<MethodHandle> initMethod = initMethods.get(initMethodName);
+        if (initMethod == null) {
+            initMethod = Optional.empty();
+            Method method = findMethodWithoutParameters(initMethodName);
+            if (method != null) {
+                method.setAccessible(true);
+                initMethod = Optional.of(MethodHandles.lookup().unreflect(method).asType(INIT_METHOD_TYPE));
+            }
+            initMethods.putIfAbsent(initMethodName, initMethod);
+        }
+        return initMethod.orElse(null);
+    }
+
+
+    // the method getInitMethod calls, for code that needs to know which one it is rather than call it
+    Method findInitMethod(String initMethodName) {
+        return findMethodWithoutParameters(initMethodName);
+    }
+
+
+    private Method findMethodWithoutParameters(String methodName) {
+        try {
+            return beanClass.getDeclaredMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            if (BeanDefinition.DEFAULT_INIT_METHOD.equals(methodName)) {
+                return null;
+            }
+        }
+        try {
+            return beanClass.getMethod(methodName);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+
+    Set<Class<?>> getAssignableTypes() {
+        Set<Class<?>> assignableTypes = this.assignableTypes;
+        if (assignableTypes == null) {
+            Set<Class<?>> types = new LinkedHashSet<>();
+            Deque<Class<?>> pending = new ArrayDeque<>();
+            pending.add(beanClass);
+            while (!pending.isEmpty()) {
+                Class<?> type = pending.poll();
+                if (type == Object.class || !types.add(type)) {
+                    continue;
+                }
+                if (type.getSuperclass() != null) {
+                    pending.add(type.getSuperclass());
+                }
+                pending.addAll(Arrays.asList(type.getInterfaces()));
+            }
+            assignableTypes = Collections.unmodifiableSet(types);
+            this.assignableTypes = assignableTypes;
+        }
+        return assignableTypes;
+    }
+
+
+    static final class AutowiredConstructor {
+        private final Constructor<?> constructor;
+        private final MethodHandle handle;
+        private final Class<?>[] parameterTypes;
+        private final String[] qualifiers;
+        private final String[] namesFromTypes;
+
+        private AutowiredConstructor(Constructor<?> constructor) throws IllegalAccessException {
+            this.constructor = constructor;
+            Parameter[] parameters = constructor.getParameters();
+            parameterTypes = constructor.getParameterTypes();
+            qualifiers = new String[parameters.length];
+            namesFromTypes = new String[parameters.length];
+            for (int index = 0; index < parameters.length; index++) {
+                Qualifier qualifier = parameters[index].getAnnotation(Qualifier.class);
+                qualifiers[index] = (qualifier == null) ? null : qualifier.value();
+                namesFromTypes[index] = WordUtils.uncapitalize(parameterTypes[index].getSimpleName());
+            }
+            handle = MethodHandles.lookup().unreflectConstructor(constructor)
+                    .asSpreader(Object[].class, parameters.length)
+                    .asType(INSTANTIATOR_TYPE);
+        }
+
+        Constructor<?> getConstructor() {
+            return constructor;
+        }
+
+        MethodHandle getHandle() {
+            return handle;
+        }
+
+        Class<?>[] getParameterTypes() {
+            return parameterTypes.clone();
+        }
+
+        int getParameterCount() {
+            return parameterTypes.length;
+        }
+
+        Class<?> getParameterType(int index) {
+            return parameterTypes[index];
+        }
+
+        String getQualifier(int index) {
+            return qualifiers[index];
+        }
+
+        String getNameFromType(int index) {
+            return namesFromTypes[index];
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package ioc;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ComponentIndexGenerator {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            throw new IllegalArgumentException("Usage: ComponentIndexGenerator <classes directory>");
+        }
+        Path classesDirectory = Paths.get(args[0]);
+        List<String> components = new ComponentIndexGenerator()
+                .findComponents(classesDirectory, Thread.currentThread().getContextClassLoader());
+
+        Path index = classesDirectory.resolve(ComponentScanConfig.COMPONENT_INDEX);
+        Files.createDirectories(index.getParent());
+        Files.write(index, components, StandardCharsets.UTF_8);
+    }
+
+
+    public List<String> findComponents(Path classesDirectory, ClassLoader classLoader) throws Exception {
+        List<String> components = new ArrayList<>();
+        for (String className : ComponentScanConfig.findCandidateClassNames(classesDirectory, "")) {
+            if (Class.forName(className, false, classLoader).isAnnotationPresent(Component.class)) {
+                components.add(className);
+            }
+        }
+        return components;
+    }
+}
@@ -0,0 +1,188 @@
+package ioc;
+
+import org.apache.commons.text.WordUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+public class ComponentScanConfig extends JavaConfig {
+    static final String COMPONENT_INDEX = "META-INF/simpleioc.components";
+
+    private static final byte[] COMPONENT_DESCRIPTOR = ("L" + Component.class.getName().replace('.', '/') + ";")
+            .getBytes(StandardCharsets.UTF_8);
+
+    public ComponentScanConfig(String... basePackages) {
+        this(Thread.currentThread().getContextClassLoader(), basePackages);
+    }
+
+    public ComponentScanConfig(ClassLoader classLoader, String... basePackages) {
+        super(findComponents(classLoader, basePackages));
+    }
+
+
+    private static Map<String, Class<?>> findComponents(ClassLoader classLoader, String[] basePackages) {
+        Set<String> classNames;
+        try {
+            classNames = findClassNames(classLoader, basePackages);
+        } catch (IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Unable to find components in " + Arrays.toString(basePackages), e);
+        }
+
+        Map<String, Class<?>> components = new LinkedHashMap<>();
+        for (String className : classNames) {
+            if (!isInPackages(className, basePackages)) {
+                continue;
+            }
+            Class<?> componentClass;
+            try {
+                componentClass = Class.forName(className, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalStateException("Component " + className + " is listed in " + COMPONENT_INDEX
+                        + " but cannot be loaded", e);
+            }
+            Component component = componentClass.getAnnotation(Component.class);
+            if (component == null) {
+                continue;
+            }
+            String beanName = component.value().isEmpty()
+                    ? WordUtils.uncapitalize(componentClass.getSimpleName()) : component.value();
+            Class<?> duplicate = components.putIfAbsent(beanName, componentClass);
+            if (duplicate != null) {
+                throw new IllegalArgumentException("Bean name '" + beanName + "' is used by both "
+                        + duplicate.getName() + " and " + className);
+            }
+        }
+        return components;
+    }
+
+
+    // an index only speaks for the classpath root it ships in, every root without one is still scanned
+    private static Set<String> findClassNames(ClassLoader classLoader, String[] basePackages) throws IOException {
+        Map<Path, Set<String>> indexesByRoot = new HashMap<>();
+        Set<String> classNames = new TreeSet<>();
+        for (String basePackage : basePackages) {
+            Enumeration<URL> packageRoots = classLoader.getResources(basePackage.replace('.', '/'));
+            while (packageRoots.hasMoreElements()) {
+                Path packageRoot = toPath(packageRoots.nextElement());
+                if (packageRoot == null) {
+                    continue;
+                }
+                Path classpathRoot = classpathRootOf(packageRoot, basePackage);
+                Set<String> indexedClassNames = indexesByRoot.get(classpathRoot);
+                if (indexedClassNames == null && !indexesByRoot.containsKey(classpathRoot)) {
+                    indexedClassNames = readComponentIndex(classpathRoot.resolve(COMPONENT_INDEX));
+                    indexesByRoot.put(classpathRoot, indexedClassNames);
+                }
+                classNames.addAll((indexedClassNames != null)
+                        ? indexedClassNames : findCandidateClassNames(packageRoot, basePackage));
+            }
+        }
+        return classNames;
+    }
+
+
+    private static Path classpathRootOf(Path packageRoot, String packageName) {
+        Path classpathRoot = packageRoot.toAbsolutePath().normalize();
+        if (!packageName.isEmpty()) {
+            for (int depth = packageName.split("\\.").length; depth > 0 && classpathRoot != null; depth--) {
+                classpathRoot = classpathRoot.getParent();
+            }
+        }
+        return (classpathRoot == null) ? packageRoot : classpathRoot;
+    }
+
+
+    private static Set<String> readComponentIndex(Path index) throws IOException {
+        if (!Files.isRegularFile(index)) {
+            return null;
+        }
+        Set<String> classNames = new TreeSet<>();
+        for (String line : Files.readAllLines(index, StandardCharsets.UTF_8)) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                classNames.add(line);
+            }
+        }
+        return classNames;
+    }
+
+
+    private static Path toPath(URL url) throws IOException {
+        try {
+            URI uri = url.toURI();
+            if ("file".equals(uri.getScheme())) {
+                return Paths.get(uri);
+            }
+            if ("jar".equals(uri.getScheme())) {
+                FileSystem jarFileSystem;
+                try {
+                    jarFileSystem = FileSystems.newFileSystem(uri, Collections.emptyMap());
+                } catch (FileSystemAlreadyExistsException e) {
+                    jarFileSystem = FileSystems.getFileSystem(uri);
+                }
+                return jarFileSystem.provider().getPath(uri);
+            }
+            return null;
+        } catch (URISyntaxException e) {
+            throw new IOException("Unable to scan " + url, e);
+        }
+    }
+
+
+    // class files are read in parallel and only the ones mentioning @Component are loaded afterwards
+    static List<String> findCandidateClassNames(Path packageRoot, String packageName) throws IOException {
+        String prefix = packageName.isEmpty() ? "" : packageName + ".";
+        try (Stream<Path> files = Files.walk(packageRoot)) {
+            return files.parallel()
+                    .filter(file -> file.toString().endsWith(".class"))
+                    .filter(ComponentScanConfig::mentionsComponent)
+                    .map(file -> prefix + toClassName(packageRoot.relativize(file)))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+
+    private static String toClassName(Path relativeClassFile) {
+        String fileName = relativeClassFile.toString();
+        return fileName.substring(0, fileName.length() - ".class".length())
+                .replace(relativeClassFile.getFileSystem().getSeparator(), ".");
+    }
+
+
+    private static boolean mentionsComponent(Path classFile) {
+        try {
+            byte[] bytes = Files.readAllBytes(classFile);
+            outer:
+            for (int start = 0; start <= bytes.length - COMPONENT_DESCRIPTOR.length; start++) {
+                for (int offset = 0; offset < COMPONENT_DESCRIPTOR.length; offset++) {
+                    if (bytes[start + offset] != COMPONENT_DESCRIPTOR[offset]) {
+                        continue outer;
+                    }
+                }
+                return true;
+            }
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static boolean isInPackages(String className, String[] basePackages) {
+        for (String basePackage : basePackages) {
+            if (basePackage.isEmpty() || className.startsWith(basePackage + ".")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
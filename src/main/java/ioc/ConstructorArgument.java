@@ -0,0 +1,39 @@
+package ioc;
+
+public class ConstructorArgument {
+    private int index;
+    private String type;
+    private String ref;
+    private String value;
+
+    public ConstructorArgument(int index, String type, String ref, String value) {
+        this.index = index;
+        this.type = type;
+        this.ref = ref;
+        this.value = value;
+    }
+
+    public static ConstructorArgument ref(String beanName) {
+        return new ConstructorArgument(-1, null, beanName, null);
+    }
+
+    public static ConstructorArgument value(String value) {
+        return new ConstructorArgument(-1, null, null, value);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
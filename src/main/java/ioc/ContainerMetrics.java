@@ -0,0 +1,62 @@
+package ioc;
+
+import proxy.LatencySnapshot;
+import proxy.MethodStatistics;
+import proxy.ResultCache;
+import proxy.ResultCaches;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+public class ContainerMetrics {
+    private final ConcurrentMap<String, BeanMetrics> beans = new ConcurrentHashMap<>();
+    private final ResultCaches caches = new ResultCaches();
+
+    ConcurrentMap<String, MethodStatistics> statisticsOf(String beanName) {
+        return beans.computeIfAbsent(beanName, name -> new BeanMetrics(new ConcurrentSkipListMap<>())).statistics();
+    }
+
+    ResultCaches resultCaches() {
+        return caches;
+    }
+
+    public BeanMetrics forBean(String beanName) {
+        return beans.getOrDefault(beanName, BeanMetrics.EMPTY);
+    }
+
+    public ResultCache forCache(String cacheName) {
+        return caches.get(cacheName);
+    }
+
+    public Map<String, ResultCache> caches() {
+        return caches.asMap();
+    }
+
+    public Map<String, Map<String, LatencySnapshot>> snapshot() {
+        Map<String, Map<String, LatencySnapshot>> snapshots = new TreeMap<>();
+        for (Map.Entry<String, BeanMetrics> bean : beans.entrySet()) {
+            snapshots.put(bean.getKey(), bean.getValue().snapshot());
+        }
+        return snapshots;
+    }
+
+    public Map<String, Map<String, LatencySnapshot>> snapshotAndReset() {
+        Map<String, Map<String, LatencySnapshot>> snapshots = new TreeMap<>();
+        for (Map.Entry<String, BeanMetrics> bean : beans.entrySet()) {
+            snapshots.put(bean.getKey(), bean.getValue().snapshotAndReset());
+        }
+        return snapshots;
+    }
+
+    public ScheduledFuture<?> scheduleSnapshotAndReset(ScheduledExecutorService scheduler, long period, TimeUnit unit,
+                                                       Consumer<Map<String, Map<String, LatencySnapshot>>> consumer) {
+        return scheduler.scheduleAtFixedRate(() -> consumer.accept(snapshotAndReset()), period, period, unit);
+    }
+}
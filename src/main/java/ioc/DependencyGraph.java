@@ -0,0 +1,60 @@
+package ioc;
+
+import java.util.*;
+
+final class DependencyGraph {
+    private final Map<String, List<String>> dependencies = new LinkedHashMap<>();
+
+    void addBean(String beanName, String[] dependencyNames) {
+        dependencies.put(beanName, Arrays.asList(dependencyNames));
+    }
+
+    List<String> dependenciesOf(String beanName) {
+        return dependencies.get(beanName);
+    }
+
+    Set<String> beanNames() {
+        return dependencies.keySet();
+    }
+
+    List<String> topologicalOrder() {
+        for (Map.Entry<String, List<String>> bean : dependencies.entrySet()) {
+            for (String dependencyName : bean.getValue()) {
+                if (!dependencies.containsKey(dependencyName)) {
+                    throw new IllegalArgumentException("Bean '" + bean.getKey() + "' depends on unknown bean '" + dependencyName + "'");
+                }
+            }
+        }
+
+        Map<String, Integer> unresolvedDependencies = new HashMap<>();
+        Map<String, List<String>> dependants = new HashMap<>();
+        Deque<String> ready = new ArrayDeque<>();
+        for (Map.Entry<String, List<String>> bean : dependencies.entrySet()) {
+            unresolvedDependencies.put(bean.getKey(), bean.getValue().size());
+            for (String dependencyName : bean.getValue()) {
+                dependants.computeIfAbsent(dependencyName, name -> new ArrayList<>()).add(bean.getKey());
+            }
+            if (bean.getValue().isEmpty()) {
+                ready.add(bean.getKey());
+            }
+        }
+
+        List<String> order = new ArrayList<>(dependencies.size());
+        while (!ready.isEmpty()) {
+            String beanName = ready.poll();
+            order.add(beanName);
+            for (String dependant : dependants.getOrDefault(beanName, Collections.emptyList())) {
+                if (unresolvedDependencies.merge(dependant, -1, Integer::sum) == 0) {
+                    ready.add(dependant);
+                }
+            }
+        }
+
+        if (order.size() < dependencies.size()) {
+            Set<String> beansInCycles = new TreeSet<>(dependencies.keySet());
+            beansInCycles.removeAll(order);
+            throw new IllegalStateException("Circular dependency between beans " + beansInCycles);
+        }
+        return order;
+    }
+}
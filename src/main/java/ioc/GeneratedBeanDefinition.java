@@ -0,0 +1,80 @@
+package ioc;
+
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+public class GeneratedBeanDefinition implements PrecompiledBeanDefinition {
+    private String beanName;
+    private Class<?> beanClass;
+    private String[] dependencyNames;
+    private Class<?>[] dependencyTypes;
+    private Function<Object[], Object> factory;
+    private Consumer<Object> initMethod;
+    private boolean benchmarked;
+    private Scope scope;
+
+    public GeneratedBeanDefinition(String beanName, Class<?> beanClass, String[] dependencyNames, Class<?>[] dependencyTypes,
+                                   Function<Object[], Object> factory, Consumer<Object> initMethod, boolean benchmarked) {
+        this(beanName, beanClass, dependencyNames, dependencyTypes, factory, initMethod, benchmarked, Scope.SINGLETON);
+    }
+
+    public GeneratedBeanDefinition(String beanName, Class<?> beanClass, String[] dependencyNames, Class<?>[] dependencyTypes,
+                                   Function<Object[], Object> factory, Consumer<Object> initMethod, boolean benchmarked,
+                                   Scope scope) {
+        this.beanName = beanName;
+        this.beanClass = beanClass;
+        this.dependencyNames = dependencyNames;
+        this.dependencyTypes = dependencyTypes;
+        this.factory = factory;
+        this.initMethod = initMethod;
+        this.benchmarked = benchmarked;
+        this.scope = scope;
+    }
+
+    @Override
+    public String getBeanName() {
+        return beanName;
+    }
+
+    @Override
+    public Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    @Override
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public String[] getDependencyNames() {
+        return dependencyNames;
+    }
+
+    @Override
+    public Class<?>[] getDependencyTypes() {
+        return dependencyTypes;
+    }
+
+    @Override
+    public Object newInstance(Object[] dependencies) {
+        return factory.apply(dependencies);
+    }
+
+    @Override
+    public boolean hasInitMethod() {
+        return initMethod != null;
+    }
+
+    @Override
+    public void init(Object bean) {
+        if (initMethod != null) {
+            initMethod.accept(bean);
+        }
+    }
+
+    @Override
+    public boolean isBenchmarked() {
+        return benchmarked;
+    }
+}
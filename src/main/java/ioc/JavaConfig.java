@@ -18,6 +18,7 @@ public class JavaConfig implements Config {
     @Override
     public BeanDefinition beanDefinition(String beanName) {
         Class<?> beanClass = beanDescription.get(beanName);
-        return new SimpleBeanDefinition(beanName, beanClass);
+        BeanScope beanScope = (beanClass == null) ? null : beanClass.getAnnotation(BeanScope.class);
+        return new SimpleBeanDefinition(beanName, beanClass, (beanScope == null) ? Scope.SINGLETON : beanScope.value());
     }
 }
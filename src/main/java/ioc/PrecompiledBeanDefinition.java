@@ -0,0 +1,10 @@
+package ioc;
+
+public interface PrecompiledBeanDefinition extends BeanDefinition {
+    String[] getDependencyNames();
+    Class<?>[] getDependencyTypes();
+    Object newInstance(Object[] dependencies);
+    boolean hasInitMethod();
+    void init(Object bean);
+    boolean isBenchmarked();
+}
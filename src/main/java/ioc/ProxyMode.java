@@ -0,0 +1,6 @@
+package ioc;
+
+public enum ProxyMode {
+    INTERFACE,
+    SUBCLASS
+}
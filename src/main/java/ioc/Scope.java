@@ -0,0 +1,8 @@
+package ioc;
+
+public enum Scope {
+    SINGLETON,
+    PROTOTYPE,
+    THREAD,
+    REQUEST
+}
@@ -4,10 +4,16 @@ package ioc;
 public class SimpleBeanDefinition implements BeanDefinition {
     private String beanName;
     private Class<?> beanClass;
+    private Scope scope;
 
     public SimpleBeanDefinition(String beanName, Class<?> beanClass) {
+        this(beanName, beanClass, Scope.SINGLETON);
+    }
+
+    public SimpleBeanDefinition(String beanName, Class<?> beanClass, Scope scope) {
         this.beanName = beanName;
         this.beanClass = beanClass;
+        this.scope = scope;
     }
 
     @Override
@@ -19,4 +25,9 @@ public class SimpleBeanDefinition implements BeanDefinition {
     public Class<?> getBeanClass() {
         return beanClass;
     }
+
+    @Override
+    public Scope getScope() {
+        return scope;
+    }
 }
@@ -1,135 +1,694 @@
 package ioc;
 
-import org.apache.commons.text.WordUtils;
-import proxy.BenchmarkProxyHandler;
-
 import java.lang.reflect.*;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 public class SimpleIoC {
+    private static final Executor DEFAULT_ASYNC_EXECUTOR = defaultAsyncExecutor();
+
     private Config config;
+    private SimpleIoC parent;
+    private Set<String> localBeanNames;
+    private BeanTypeIndex typeIndex;
     private Map<String, Object> container;
+    private ConcurrentMap<String, CompletableFuture<Object>> beansInCreation;
+    private ConcurrentMap<String, BeanCreationPlan> creationPlans;
+    private ThreadLocal<Set<String>> beansInCreationByCurrentThread = ThreadLocal.withInitial(LinkedHashSet::new);
+    private ContainerMetrics metrics = new ContainerMetrics();
+    private BenchmarkProxyPostProcessor benchmarkProxyPostProcessor = new BenchmarkProxyPostProcessor(metrics);
+    private List<BeanPostProcessor> postProcessors = new CopyOnWriteArrayList<>(
+            Collections.singletonList(benchmarkProxyPostProcessor));
+
+    private volatile Executor asyncExecutor = DEFAULT_ASYNC_EXECUTOR;
+    // the clock the startup report is timed with
+    private volatile LongSupplier nanoClock = System::nanoTime;
+    private boolean allowEarlyReferences;
+    private Set<String> beansCheckedForCycles = ConcurrentHashMap.newKeySet();
+    private Set<String> beansInCycles = ConcurrentHashMap.newKeySet();
+    private Set<String> earlyReferenceBeans = ConcurrentHashMap.newKeySet();
+    private ReentrantLock cyclicCreationLock = new ReentrantLock();
+    private Map<String, Supplier<Object>> singletonFactories = new ConcurrentHashMap<>();
+    private Map<String, Object> earlySingletons = new ConcurrentHashMap<>();
+
+    // per container rather than static, so the scoped beans of a discarded container are not kept alive by its threads
+    private ThreadLocal<Map<String, Object>> threadScopedBeans = ThreadLocal.withInitial(HashMap::new);
+    private ThreadLocal<Map<String, Object>> requestScopedBeans = new ThreadLocal<>();
 
     public SimpleIoC(Config config) {
-        container = new HashMap<>();
+        this(config, null);
+    }
+
+
+    public SimpleIoC(Config config, SimpleIoC parent) {
+        container = new ConcurrentHashMap<>();
+        beansInCreation = new ConcurrentHashMap<>();
+        creationPlans = new ConcurrentHashMap<>();
         this.config = config;
+        this.parent = parent;
         checkUniqueBeanNames();
+        typeIndex = BeanTypeIndex.of(config, (parent == null) ? BeanTypeIndex.EMPTY : parent.typeIndex);
+        benchmarkProxyPostProcessor.setFactoryBeanNames(factoryBeanNames());
+    }
+
+
+    // virtual threads where the runtime has them, looked up reflectively because the code still targets Java 8
+    private static Executor defaultAsyncExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return ForkJoinPool.commonPool();
+        }
+    }
+
+
+    private Set<String> factoryBeanNames() {
+        Set<String> factoryBeanNames = new HashSet<>();
+        for (String beanName : config.beanNames()) {
+            BeanDefinition beanDefinition = config.beanDefinition(beanName);
+            if (beanDefinition != null && beanDefinition.getFactoryBeanName() != null) {
+                factoryBeanNames.add(beanDefinition.getFactoryBeanName());
+            }
+        }
+        return factoryBeanNames;
     }
 
 
     private void checkUniqueBeanNames() {
-        Set<String> beanNames = new HashSet<>(config.beanNames());
-        if (beanNames.size() < config.beanNames().size()) {
+        List<String> beanNames = config.beanNames();
+        localBeanNames = new HashSet<>(beanNames);
+        if (localBeanNames.size() < beanNames.size()) {
             throw new IllegalArgumentException();
         }
     }
 
 
+    public SimpleIoC getParent() {
+        return parent;
+    }
+
+
     public List<String> beanDefinitions() {
         return config.beanNames();
     }
 
 
+    // the benchmark proxy stays last, so the other processors see the bean itself
+    public void addBeanPostProcessor(BeanPostProcessor postProcessor) {
+        if (!creationPlans.isEmpty()) {
+            throw new IllegalStateException("Bean post processors must be added before the first bean is created");
+        }
+        postProcessors.add(postProcessors.size() - 1, postProcessor);
+    }
+
+
+    public void setProxyMode(ProxyMode proxyMode) {
+        if (!creationPlans.isEmpty()) {
+            throw new IllegalStateException("The proxy mode must be set before the first bean is created");
+        }
+        benchmarkProxyPostProcessor.setProxyMode(proxyMode);
+    }
+
+
+    public void setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+
+    public void setAllowEarlyReferences(boolean allowEarlyReferences) {
+        this.allowEarlyReferences = allowEarlyReferences;
+    }
+
+
+    void setNanoClock(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+    }
+
+
+    public StartupReport refresh() {
+        return refresh(ForkJoinPool.commonPool());
+    }
+
+
+    public StartupReport refresh(ForkJoinPool pool) {
+        LongSupplier nanoClock = this.nanoClock;
+        long start = nanoClock.getAsLong();
+        DependencyGraph graph = buildDependencyGraph();
+        List<String> creationOrder = graph.topologicalOrder();
+
+        Map<String, CompletableFuture<Long>> creations = new HashMap<>();
+        for (String beanName : creationOrder) {
+            List<String> dependencyNames = graph.dependenciesOf(beanName);
+            CompletableFuture<?>[] dependencies = new CompletableFuture<?>[dependencyNames.size()];
+            for (int index = 0; index < dependencies.length; index++) {
+                dependencies[index] = creations.get(dependencyNames.get(index));
+            }
+            boolean singleton = scopeOf(beanName) == Scope.SINGLETON;
+            creations.put(beanName, CompletableFuture.allOf(dependencies).thenApplyAsync(ignored -> {
+                if (!singleton) {
+                    return 0L;
+                }
+                long creationStart = nanoClock.getAsLong();
+                getBean(beanName);
+                return nanoClock.getAsLong() - creationStart;
+            }, pool));
+        }
+
+        try {
+            CompletableFuture.allOf(creations.values().toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
+        }
+
+        Map<String, Long> creationNanos = new LinkedHashMap<>();
+        for (String beanName : creationOrder) {
+            creationNanos.put(beanName, creations.get(beanName).join());
+        }
+        return createStartupReport(nanoClock.getAsLong() - start, graph, creationOrder, creationNanos);
+    }
+
+
+    private DependencyGraph buildDependencyGraph() {
+        DependencyGraph graph = new DependencyGraph();
+        for (String beanName : config.beanNames()) {
+            checkForCircularDependencies(beanName);
+        }
+        for (String beanName : config.beanNames()) {
+            try {
+                // an early reference bean is instantiated before its dependencies, which breaks its cycles
+                List<String> dependencyNames = new ArrayList<>();
+                if (!earlyReferenceBeans.contains(beanName)) {
+                    for (String dependencyName : creationPlan(beanName).getDependencyNames()) {
+                        // beans of the parent container are already there or created on demand by it
+                        if (!isInheritedBean(dependencyName)) {
+                            dependencyNames.add(dependencyName);
+                        }
+                    }
+                }
+                graph.addBean(beanName, dependencyNames.toArray(new String[0]));
+            } catch (Exception e) {
+                throw new IllegalArgumentException("Unable to create bean '" + beanName + "'", e);
+            }
+        }
+        return graph;
+    }
+
+
+    private StartupReport createStartupReport(long totalNanos, DependencyGraph graph,
+                                              List<String> creationOrder, Map<String, Long> creationNanos) {
+        Map<String, Long> finishNanos = new HashMap<>();
+        Map<String, String> slowestDependency = new HashMap<>();
+        String lastBeanOnCriticalPath = null;
+        for (String beanName : creationOrder) {
+            long dependenciesFinish = 0;
+            for (String dependencyName : graph.dependenciesOf(beanName)) {
+                if (finishNanos.get(dependencyName) >= dependenciesFinish) {
+                    dependenciesFinish = finishNanos.get(dependencyName);
+                    slowestDependency.put(beanName, dependencyName);
+                }
+            }
+            finishNanos.put(beanName, dependenciesFinish + creationNanos.get(beanName));
+            if (lastBeanOnCriticalPath == null || finishNanos.get(beanName) > finishNanos.get(lastBeanOnCriticalPath)) {
+                lastBeanOnCriticalPath = beanName;
+            }
+        }
+
+        LinkedList<String> criticalPath = new LinkedList<>();
+        for (String beanName = lastBeanOnCriticalPath; beanName != null; beanName = slowestDependency.get(beanName)) {
+            criticalPath.addFirst(beanName);
+        }
+        long criticalPathNanos = (lastBeanOnCriticalPath == null) ? 0 : finishNanos.get(lastBeanOnCriticalPath);
+        return new StartupReport(totalNanos, Collections.unmodifiableMap(creationNanos),
+                Collections.unmodifiableList(criticalPath), criticalPathNanos);
+    }
+
+
+    public ContainerMetrics metrics() {
+        return metrics;
+    }
+
+
     public Object getBean(String beanName) {
-        if (container.containsKey(beanName)) {
-            return container.get(beanName);
+        Object bean = container.get(beanName);
+        if (bean != null) {
+            return bean;
+        }
+        if (isInheritedBean(beanName)) {
+            return getBeanFromParent(beanName);
+        }
+        switch (scopeOf(beanName)) {
+            case PROTOTYPE:
+                return createPrototype(beanName);
+            case THREAD:
+                return getScopedBean(beanName, threadScopedBeans.get());
+            case REQUEST:
+                return getScopedBean(beanName, currentRequestScope(beanName));
+            default:
+                return createSingleton(beanName);
+        }
+    }
+
+
+    public <T> T getBean(Class<T> beanType) {
+        List<String> beanNames = typeIndex.beanNamesOf(beanType);
+        if (beanNames.size() != 1) {
+            throw new IllegalArgumentException(beanNames.isEmpty()
+                    ? "No bean of type " + beanType.getName()
+                    : "Bean type " + beanType.getName() + " is ambiguous between " + beanNames);
         }
+        return beanType.cast(getBean(beanNames.get(0)));
+    }
+
 
+    // singletons are created without blocking the caller, with their dependencies in parallel; a bean whose
+    // init method returns a CompletionStage is only exposed once it completes. Other scopes are bound to
+    // the calling thread, so they are resolved right away
+    public CompletableFuture<Object> getBeanAsync(String beanName) {
+        Object bean = container.get(beanName);
+        if (bean != null) {
+            return CompletableFuture.completedFuture(bean);
+        }
         try {
-            BeanDefinition beanDefinition = config.beanDefinition(beanName);
-            Object bean = buildBeanFromDefinition(beanDefinition);
-            container.put(beanName, bean);
-        } catch (Exception e) {
-            e.printStackTrace();
-            throw new IllegalArgumentException();
+            if (isInheritedBean(beanName)) {
+                return parent.getBeanAsync(beanName).thenApply(parentBean -> {
+                    if (parent.scopeOf(beanName) == Scope.SINGLETON) {
+                        container.putIfAbsent(beanName, parentBean);
+                    }
+                    return parentBean;
+                });
+            }
+            if (scopeOf(beanName) != Scope.SINGLETON) {
+                return CompletableFuture.completedFuture(getBean(beanName));
+            }
+            checkForCircularDependencies(beanName);
+        } catch (RuntimeException e) {
+            return failedFuture(e);
+        }
+        if (beansInCycles.contains(beanName)) {
+            // early references only work while one thread creates the whole cycle
+            return CompletableFuture.supplyAsync(() -> getBean(beanName), asyncExecutor);
+        }
+        return createSingletonAsync(beanName);
+    }
+
+
+    public <T> T callInRequestScope(Supplier<T> task) {
+        Map<String, Object> enclosingRequestScope = requestScopedBeans.get();
+        requestScopedBeans.set(new HashMap<>());
+        try {
+            return task.get();
+        } finally {
+            if (enclosingRequestScope == null) {
+                requestScopedBeans.remove();
+            } else {
+                requestScopedBeans.set(enclosingRequestScope);
+            }
         }
+    }
+
+
+    public void runInRequestScope(Runnable task) {
+        callInRequestScope(() -> {
+            task.run();
+            return null;
+        });
+    }
+
 
-        return container.get(beanName);
+    public void clearThreadScope() {
+        threadScopedBeans.remove();
     }
 
 
-    private Object buildBeanFromDefinition(BeanDefinition beanDefinition) throws Exception  {
-        Class<?> beanClass = beanDefinition.getBeanClass();
-        Constructor constructor = beanClass.getDeclaredConstructors()[0];
+    private boolean isInheritedBean(String beanName) {
+        return parent != null && !localBeanNames.contains(beanName);
+    }
+
 
-        Object bean;
-        if (isDefaultConstructor(constructor)) {
-            bean = instantiateBeanWithDefaultConstructor(beanClass);
-        } else {
-            bean = instantiateBeanWithConstructor(beanClass);
+    private Object getBeanFromParent(String beanName) {
+        Object bean = parent.getBean(beanName);
+        if (parent.scopeOf(beanName) == Scope.SINGLETON) {
+            container.putIfAbsent(beanName, bean);
         }
+        return bean;
+    }
 
-        callInitMethod(bean);
 
-        bean = createBenchmarkProxy(bean);
+    private Scope scopeOf(String beanName) {
+        if (isInheritedBean(beanName)) {
+            return parent.scopeOf(beanName);
+        }
+        try {
+            return creationPlan(beanName).getScope();
+        } catch (Exception e) {
+            // reported with its cause when the bean itself is created
+            return Scope.SINGLETON;
+        }
+    }
+
 
+    private Map<String, Object> currentRequestScope(String beanName) {
+        Map<String, Object> requestScope = requestScopedBeans.get();
+        if (requestScope == null) {
+            throw new IllegalStateException("Bean '" + beanName + "' is request scoped, but no request scope is active");
+        }
+        return requestScope;
+    }
+
+
+    private Object getScopedBean(String beanName, Map<String, Object> scope) {
+        Object bean = scope.get(beanName);
+        if (bean == null) {
+            bean = createPrototype(beanName);
+            scope.put(beanName, bean);
+        }
         return bean;
     }
 
 
-    private boolean isDefaultConstructor(Constructor constructor) {
-        int constructorParametersCount = constructor.getParameterCount();
-        return constructorParametersCount == 0;
+    private Object createPrototype(String beanName) {
+        checkForCircularDependencies(beanName);
+        Set<String> beansInCreationByThisThread = beansInCreationByCurrentThread.get();
+        beansInCreationByThisThread.add(beanName);
+        try {
+            return buildBean(beanName);
+        } finally {
+            beansInCreationByThisThread.remove(beanName);
+        }
+    }
+
+
+    private Object createSingleton(String beanName) {
+        checkForCircularDependencies(beanName);
+        if (!beansInCycles.contains(beanName)) {
+            return createSingletonOnce(beanName);
+        }
+
+        // beans of a cycle are created together by one thread, otherwise two threads entering
+        // the cycle from different beans would wait for each other forever
+        cyclicCreationLock.lock();
+        try {
+            Object bean = container.get(beanName);
+            return (bean != null) ? bean : createSingletonOnce(beanName);
+        } finally {
+            cyclicCreationLock.unlock();
+        }
     }
 
 
-    private String getBeanNameFromParameterClassName(Parameter parameter) {
-        return WordUtils.uncapitalize(parameter.getType().getSimpleName());
+    private Object createSingletonOnce(String beanName) {
+        CompletableFuture<Object> creation = new CompletableFuture<>();
+        CompletableFuture<Object> concurrentCreation = beansInCreation.putIfAbsent(beanName, creation);
+        if (concurrentCreation != null) {
+            return awaitSingleton(beanName, concurrentCreation);
+        }
+
+        Set<String> beansInCreationByThisThread = beansInCreationByCurrentThread.get();
+        beansInCreationByThisThread.add(beanName);
+        try {
+            // another thread may have finished this bean between the lock-free read and putIfAbsent
+            Object bean = container.get(beanName);
+            if (bean == null) {
+                bean = buildBean(beanName);
+                container.put(beanName, bean);
+            }
+            creation.complete(bean);
+            return bean;
+        } catch (RuntimeException e) {
+            creation.completeExceptionally(e);
+            throw e;
+        } finally {
+            beansInCreationByThisThread.remove(beanName);
+            beansInCreation.remove(beanName, creation);
+        }
     }
 
 
-    private Object instantiateBeanWithConstructor(Class clazz) throws IllegalAccessException, InvocationTargetException, InstantiationException {
-        Constructor constructor = clazz.getDeclaredConstructors()[0];
-        int constructorParametersCount = constructor.getParameterCount();
-        Object[] arguments = new Object[constructorParametersCount];
+    private CompletableFuture<Object> createSingletonAsync(String beanName) {
+        CompletableFuture<Object> creation = new CompletableFuture<>();
+        CompletableFuture<Object> concurrentCreation = beansInCreation.putIfAbsent(beanName, creation);
+        if (concurrentCreation != null) {
+            return concurrentCreation;
+        }
+
+        BeanCreationPlan plan;
+        try {
+            Object bean = container.get(beanName);
+            if (bean != null) {
+                beansInCreation.remove(beanName, creation);
+                creation.complete(bean);
+                return creation;
+            }
+            plan = creationPlan(beanName);
+        } catch (Exception e) {
+            beansInCreation.remove(beanName, creation);
+            creation.completeExceptionally(creationFailure(beanName, e));
+            return creation;
+        }
 
-        for (int index = 0; index < constructorParametersCount; index++) {
-            Parameter parameter = constructor.getParameters()[index];
-            String injectedBeanName =getBeanNameFromParameterClassName(parameter);
-            arguments[index] = getBean(injectedBeanName);
+        String[] dependencyNames = plan.getDependencyNames();
+        CompletableFuture<?>[] dependencies = new CompletableFuture<?>[dependencyNames.length];
+        for (int index = 0; index < dependencies.length; index++) {
+            dependencies[index] = getBeanAsync(dependencyNames[index]);
         }
+        CompletableFuture.allOf(dependencies).thenComposeAsync(ignored -> {
+            Object[] arguments = new Object[dependencies.length];
+            for (int index = 0; index < arguments.length; index++) {
+                arguments[index] = dependencies[index].join();
+            }
+            try {
+                return plan.postProcessBeforeInitAsync(plan.instantiate(arguments));
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, asyncExecutor).thenApply(initializedBean -> {
+            try {
+                return plan.postProcessAfterInit(initializedBean);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }).whenComplete((bean, failure) -> {
+            if (failure == null) {
+                container.put(beanName, bean);
+                beansInCreation.remove(beanName, creation);
+                creation.complete(bean);
+            } else {
+                beansInCreation.remove(beanName, creation);
+                creation.completeExceptionally(creationFailure(beanName,
+                        (failure instanceof CompletionException) ? failure.getCause() : failure));
+            }
+        });
+        return creation;
+    }
 
-        return constructor.newInstance(arguments);
+
+    private static RuntimeException creationFailure(String beanName, Throwable failure) {
+        if (failure instanceof IllegalStateException) {
+            return (IllegalStateException) failure;
+        }
+        return new IllegalArgumentException("Unable to create bean '" + beanName + "'", failure);
     }
 
 
-    private Object instantiateBeanWithDefaultConstructor(Class clazz) throws IllegalAccessException, InstantiationException {
-        return clazz.newInstance();
+    private static <T> CompletableFuture<T> failedFuture(Throwable failure) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(failure);
+        return future;
     }
 
 
-    private void callInitMethod(Object bean) throws Exception{
+    private Object awaitSingleton(String beanName, CompletableFuture<Object> creation) {
+        Set<String> beansInCreationByThisThread = beansInCreationByCurrentThread.get();
+        if (beansInCreationByThisThread.contains(beanName)) {
+            Object earlyReference = getEarlyReference(beanName);
+            if (earlyReference != null) {
+                return earlyReference;
+            }
+            List<String> cycle = new ArrayList<>();
+            boolean inCycle = false;
+            for (String beanInCreation : beansInCreationByThisThread) {
+                inCycle |= beanInCreation.equals(beanName);
+                if (inCycle) {
+                    cycle.add(beanInCreation);
+                }
+            }
+            cycle.add(beanName);
+            throw new CircularDependencyException(cycle);
+        }
         try {
-            Method method = bean.getClass().getDeclaredMethod("init");
-            method.invoke(bean);
-        } catch (NoSuchMethodException e) {
-          //  e.printStackTrace();
+            return creation.join();
+        } catch (CompletionException e) {
+            throw unwrap(e);
         }
     }
 
 
-    private Object createBenchmarkProxy(Object bean) {
-        if (isAnnotatedMethodPresentInBean(bean, Benchmark.class)) {
-            return wrapBeanWithBenchmarkProxy(bean);
+    private static RuntimeException unwrap(CompletionException e) {
+        if (e.getCause() instanceof RuntimeException) {
+            return (RuntimeException) e.getCause();
         }
-        return bean;
+        return e;
+    }
+
+
+    private Object getEarlyReference(String beanName) {
+        Object earlyReference = earlySingletons.get(beanName);
+        if (earlyReference == null) {
+            Supplier<Object> singletonFactory = singletonFactories.remove(beanName);
+            if (singletonFactory != null) {
+                earlyReference = singletonFactory.get();
+                earlySingletons.put(beanName, earlyReference);
+            }
+        }
+        return earlyReference;
+    }
+
+
+    private void checkForCircularDependencies(String beanName) {
+        if (beansCheckedForCycles.contains(beanName)) {
+            return;
+        }
+        synchronized (beansCheckedForCycles) {
+            Set<String> visited = new HashSet<>();
+            visitForCycles(beanName, new ArrayList<>(), visited);
+            beansCheckedForCycles.addAll(visited);
+        }
+    }
+
+
+    private void visitForCycles(String beanName, List<String> path, Set<String> visited) {
+        int cycleStart = path.indexOf(beanName);
+        if (cycleStart >= 0) {
+            List<String> cycle = new ArrayList<>(path.subList(cycleStart, path.size()));
+            cycle.add(beanName);
+            registerCycle(cycle);
+            return;
+        }
+        if (beansCheckedForCycles.contains(beanName) || !visited.add(beanName)) {
+            return;
+        }
+
+        path.add(beanName);
+        for (String dependencyName : dependencyNamesForCycleCheck(beanName)) {
+            visitForCycles(dependencyName, path, visited);
+        }
+        path.remove(path.size() - 1);
+    }
+
+
+    private String[] dependencyNamesForCycleCheck(String beanName) {
+        if (earlyReferenceBeans.contains(beanName) || isInheritedBean(beanName)) {
+            return new String[0];
+        }
+        try {
+            return creationPlan(beanName).getDependencyNames();
+        } catch (Exception e) {
+            // reported with its cause when the bean itself is created
+            return new String[0];
+        }
+    }
+
+
+    private void registerCycle(List<String> cycle) {
+        if (!allowEarlyReferences) {
+            throw new CircularDependencyException(cycle);
+        }
+        for (String beanName : cycle) {
+            BeanCreationPlan plan = creationPlans.get(beanName);
+            if (plan.getScope() == Scope.SINGLETON && plan.canInstantiateWithoutDependencies()) {
+                earlyReferenceBeans.add(beanName);
+                beansInCycles.addAll(cycle);
+                return;
+            }
+        }
+        throw new CircularDependencyException(cycle);
     }
 
 
-    private boolean isAnnotatedMethodPresentInBean(Object bean, Class clazz) {
-        for (Method method: bean.getClass().getDeclaredMethods()) {
-            if (method.isAnnotationPresent(clazz)) {
-                return true;
+    private Object buildBean(String beanName) {
+        try {
+            BeanCreationPlan plan = creationPlan(beanName);
+            if (earlyReferenceBeans.contains(beanName)) {
+                return buildBeanWithEarlyReference(beanName, plan);
+            }
+
+            Object bean = plan.instantiate(resolveDependencies(plan));
+            if (!plan.hasPostProcessors()) {
+                return bean;
+            }
+            return plan.postProcessAfterInit(plan.postProcessBeforeInit(bean));
+        } catch (IllegalStateException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unable to create bean '" + beanName + "'", e);
+        }
+    }
+
+
+    private Object buildBeanWithEarlyReference(String beanName, BeanCreationPlan plan) throws Exception {
+        Object bean = plan.instantiateWithoutDependencies();
+        singletonFactories.put(beanName, () -> exposeEarlyReference(beanName, plan, bean));
+        try {
+            // dependencies are only created here, the bean is expected to receive them through a setter or init()
+            Set<String> beansInCreationByThisThread = beansInCreationByCurrentThread.get();
+            for (String dependencyName : plan.getDependencyNames()) {
+                if (!beansInCreationByThisThread.contains(dependencyName)) {
+                    getBean(dependencyName);
+                }
+            }
+
+            Object initializedBean = plan.postProcessBeforeInit(bean);
+
+            Object earlyReference = earlySingletons.get(beanName);
+            return (earlyReference != null) ? earlyReference : plan.postProcessAfterInit(initializedBean);
+        } finally {
+            singletonFactories.remove(beanName);
+            earlySingletons.remove(beanName);
+        }
+    }
+
+
+    private Object exposeEarlyReference(String beanName, BeanCreationPlan plan, Object bean) {
+        try {
+            return plan.postProcessAfterInit(bean);
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Unable to create bean '" + beanName + "'", e);
+        }
+    }
+
+
+    private BeanCreationPlan creationPlan(String beanName) throws IllegalAccessException {
+        BeanCreationPlan plan = creationPlans.get(beanName);
+        if (plan == null) {
+            plan = BeanCreationPlan.compile(config.beanDefinition(beanName), typeIndex, postProcessors);
+            BeanCreationPlan concurrentPlan = creationPlans.putIfAbsent(beanName, plan);
+            if (concurrentPlan != null) {
+                plan = concurrentPlan;
             }
         }
-        return false; // there is no clazz annotation present in this bean
+        return plan;
     }
 
 
-    private Object wrapBeanWithBenchmarkProxy(Object bean) {
-        ClassLoader classLoader = ClassLoader.getSystemClassLoader();
-        Class[] interfaces = bean.getClass().getInterfaces();
-        return Proxy.newProxyInstance(classLoader, interfaces, new BenchmarkProxyHandler(bean));
+    private Object[] resolveDependencies(BeanCreationPlan plan) {
+        String[] dependencyNames = plan.getDependencyNames();
+        Object[] arguments = new Object[dependencyNames.length];
+        for (int index = 0; index < dependencyNames.length; index++) {
+            arguments[index] = getBean(dependencyNames[index]);
+        }
+        return arguments;
     }
 
 }
@@ -0,0 +1,45 @@
+package ioc;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+public class StartupReport {
+    private final long totalNanos;
+    private final Map<String, Long> creationNanos;
+    private final List<String> criticalPath;
+    private final long criticalPathNanos;
+
+    StartupReport(long totalNanos, Map<String, Long> creationNanos, List<String> criticalPath, long criticalPathNanos) {
+        this.totalNanos = totalNanos;
+        this.creationNanos = creationNanos;
+        this.criticalPath = criticalPath;
+        this.criticalPathNanos = criticalPathNanos;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public Map<String, Long> getCreationNanos() {
+        return creationNanos;
+    }
+
+    public List<String> getCriticalPath() {
+        return criticalPath;
+    }
+
+    public long getCriticalPathNanos() {
+        return criticalPathNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "StartupReport{" +
+                "beans=" + creationNanos.size() +
+                ", totalMillis=" + TimeUnit.NANOSECONDS.toMillis(totalNanos) +
+                ", criticalPath=" + String.join(" -> ", criticalPath) +
+                ", criticalPathMillis=" + TimeUnit.NANOSECONDS.toMillis(criticalPathNanos) +
+                '}';
+    }
+}
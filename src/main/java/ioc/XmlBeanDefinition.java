@@ -0,0 +1,66 @@
+package ioc;
+
+import java.util.List;
+
+final class XmlBeanDefinition implements BeanDefinition {
+    private final String beanName;
+    private final String beanClassName;
+    private final Class<?> beanClass;
+    private final Scope scope;
+    private final List<ConstructorArgument> constructorArguments;
+    private final String initMethodName;
+    private final String factoryBeanName;
+    private final String factoryMethodName;
+
+    XmlBeanDefinition(String beanName, String beanClassName, Class<?> beanClass, Scope scope,
+                      List<ConstructorArgument> constructorArguments, String initMethodName,
+                      String factoryBeanName, String factoryMethodName) {
+        this.beanName = beanName;
+        this.beanClassName = beanClassName;
+        this.beanClass = beanClass;
+        this.scope = scope;
+        this.constructorArguments = constructorArguments;
+        this.initMethodName = initMethodName;
+        this.factoryBeanName = factoryBeanName;
+        this.factoryMethodName = factoryMethodName;
+    }
+
+    @Override
+    public String getBeanName() {
+        return beanName;
+    }
+
+    String getBeanClassName() {
+        return beanClassName;
+    }
+
+    @Override
+    public Class<?> getBeanClass() {
+        return beanClass;
+    }
+
+    @Override
+    public Scope getScope() {
+        return scope;
+    }
+
+    @Override
+    public List<ConstructorArgument> getConstructorArguments() {
+        return constructorArguments;
+    }
+
+    @Override
+    public String getInitMethodName() {
+        return initMethodName;
+    }
+
+    @Override
+    public String getFactoryBeanName() {
+        return factoryBeanName;
+    }
+
+    @Override
+    public String getFactoryMethodName() {
+        return factoryMethodName;
+    }
+}
@@ -0,0 +1,349 @@
+package ioc;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+public class XmlConfig implements Config {
+    private static final int CACHE_MAGIC = 0x53494F43;
+    private static final int CACHE_VERSION = 1;
+    private static final Set<PosixFilePermission> WRITABLE_BY_OTHERS = EnumSet.of(
+            PosixFilePermission.GROUP_WRITE, PosixFilePermission.OTHERS_WRITE);
+
+    private final ClassLoader classLoader;
+    private final Map<String, XmlBeanDefinition> beanDefinitions = new LinkedHashMap<>();
+    private final boolean loadedFromCache;
+
+    // parsed definitions are only cached when a cache directory is given
+    public XmlConfig(String resource) {
+        this(resource, null);
+    }
+
+    public XmlConfig(String resource, Path cacheDirectory) {
+        this(Thread.currentThread().getContextClassLoader(), resource, cacheDirectory);
+    }
+
+    public XmlConfig(ClassLoader classLoader, String resource, Path cacheDirectory) {
+        this.classLoader = classLoader;
+        byte[] content = readResource(resource);
+        Path cacheFile = (cacheDirectory == null) ? null : cacheDirectory.resolve(cacheKey(resource, content) + ".bin");
+
+        loadedFromCache = cacheFile != null && readCache(cacheFile);
+        if (!loadedFromCache) {
+            Map<String, String> importedResources = new LinkedHashMap<>();
+            parse(resource, content, importedResources, new HashSet<>(Collections.singleton(resource)));
+            if (cacheFile != null) {
+                writeCache(cacheFile, importedResources);
+            }
+        }
+    }
+
+
+    @Override
+    public List<String> beanNames() {
+        return new ArrayList<>(beanDefinitions.keySet());
+    }
+
+
+    @Override
+    public BeanDefinition beanDefinition(String beanName) {
+        return beanDefinitions.get(beanName);
+    }
+
+
+    boolean isLoadedFromCache() {
+        return loadedFromCache;
+    }
+
+
+    private void parse(String resource, byte[] content, Map<String, String> importedResources, Set<String> visitedResources) {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(new ByteArrayInputStream(content));
+            try {
+                BeanElement bean = null;
+                while (reader.hasNext()) {
+                    int event = reader.next();
+                    if (event == XMLStreamConstants.START_ELEMENT) {
+                        String element = reader.getLocalName();
+                        if ("beans".equals(element) && bean == null) {
+                            continue;
+                        }
+                        if ("import".equals(element) && bean == null) {
+                            String importedResource = resolveImport(resource, attribute(reader, "resource"));
+                            if (visitedResources.add(importedResource)) {
+                                byte[] importedContent = readResource(importedResource);
+                                importedResources.put(importedResource, hash(importedContent));
+                                parse(importedResource, importedContent, importedResources, visitedResources);
+                            }
+                        } else if ("bean".equals(element) && bean == null) {
+                            bean = new BeanElement(reader, resource);
+                        } else if ("constructor-arg".equals(element) && bean != null) {
+                            String index = attribute(reader, "index");
+                            bean.constructorArguments.add(new ConstructorArgument((index == null) ? -1 : Integer.parseInt(index),
+                                    attribute(reader, "type"), attribute(reader, "ref"), attribute(reader, "value")));
+                        } else {
+                            throw new IllegalArgumentException("Element <" + element + "> is not supported, "
+                                    + resource + " line " + reader.getLocation().getLineNumber());
+                        }
+                    } else if (event == XMLStreamConstants.END_ELEMENT && "bean".equals(reader.getLocalName())) {
+                        addBeanDefinition(bean.beanName, bean.beanClassName, bean.scope, bean.constructorArguments,
+                                bean.initMethodName, bean.factoryBeanName, bean.factoryMethodName);
+                        bean = null;
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Unable to parse " + resource, e);
+        }
+    }
+
+
+    private static String attribute(XMLStreamReader reader, String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+
+    private static String resolveImport(String resource, String importedResource) {
+        if (importedResource == null) {
+            throw new IllegalArgumentException("<import> without a resource in " + resource);
+        }
+        if (importedResource.startsWith("classpath:")) {
+            importedResource = importedResource.substring("classpath:".length());
+        }
+        if (importedResource.startsWith("/")) {
+            return importedResource.substring(1);
+        }
+        int directoryEnd = resource.lastIndexOf('/');
+        return (directoryEnd < 0) ? importedResource : resource.substring(0, directoryEnd + 1) + importedResource;
+    }
+
+
+    private void addBeanDefinition(String beanName, String beanClassName, Scope scope, List<ConstructorArgument> constructorArguments,
+                                   String initMethodName, String factoryBeanName, String factoryMethodName) {
+        Class<?> beanClass = null;
+        if (beanClassName != null) {
+            try {
+                beanClass = Class.forName(beanClassName, false, classLoader);
+            } catch (ClassNotFoundException e) {
+                throw new IllegalArgumentException("Class of bean '" + beanName + "' not found", e);
+            }
+        }
+        XmlBeanDefinition beanDefinition = new XmlBeanDefinition(beanName, beanClassName, beanClass, scope,
+                Collections.unmodifiableList(constructorArguments), initMethodName, factoryBeanName, factoryMethodName);
+        if (beanDefinitions.putIfAbsent(beanName, beanDefinition) != null) {
+            throw new IllegalArgumentException("Bean '" + beanName + "' is defined more than once");
+        }
+    }
+
+
+    private byte[] readResource(String resource) {
+        try (InputStream input = classLoader.getResourceAsStream(resource)) {
+            if (input == null) {
+                throw new IllegalArgumentException("Resource " + resource + " not found");
+            }
+            ByteArrayOutputStream content = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) >= 0) {
+                content.write(buffer, 0, read);
+            }
+            return content.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+
+    private static String cacheKey(String resource, byte[] content) {
+        MessageDigest digest = sha256();
+        digest.update(resource.getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+        return toHex(digest.digest(content));
+    }
+
+
+    private static String hash(byte[] content) {
+        return toHex(sha256().digest(content));
+    }
+
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+
+
+    // the cache is only an optimization, any problem with it falls back to parsing the XML
+    private boolean readCache(Path cacheFile) {
+        if (!Files.isRegularFile(cacheFile, LinkOption.NOFOLLOW_LINKS)
+                || !isPrivate(cacheFile.getParent()) || !isPrivate(cacheFile)) {
+            return false;
+        }
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(cacheFile)))) {
+            if (input.readInt() != CACHE_MAGIC || input.readInt() != CACHE_VERSION) {
+                return false;
+            }
+            int importedResourceCount = input.readInt();
+            for (int index = 0; index < importedResourceCount; index++) {
+                String importedResource = input.readUTF();
+                String importedHash = input.readUTF();
+                if (classLoader.getResource(importedResource) == null || !importedHash.equals(hash(readResource(importedResource)))) {
+                    return false;
+                }
+            }
+            int beanCount = input.readInt();
+            for (int index = 0; index < beanCount; index++) {
+                String beanName = input.readUTF();
+                String beanClassName = readNullableString(input);
+                Scope scope = Scope.valueOf(input.readUTF());
+                List<ConstructorArgument> constructorArguments = new ArrayList<>();
+                int argumentCount = input.readInt();
+                for (int argument = 0; argument < argumentCount; argument++) {
+                    constructorArguments.add(new ConstructorArgument(input.readInt(), readNullableString(input),
+                            readNullableString(input), readNullableString(input)));
+                }
+                addBeanDefinition(beanName, beanClassName, scope, constructorArguments,
+                        readNullableString(input), readNullableString(input), readNullableString(input));
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            beanDefinitions.clear();
+            return false;
+        }
+    }
+
+
+    private void writeCache(Path cacheFile, Map<String, String> importedResources) {
+        try {
+            if (!Files.isDirectory(cacheFile.getParent())) {
+                if (supportsPosix(cacheFile.getParent().getParent())) {
+                    Files.createDirectories(cacheFile.getParent(),
+                            PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+                } else {
+                    Files.createDirectories(cacheFile.getParent());
+                }
+            }
+            Path temporaryFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporaryFile)))) {
+                output.writeInt(CACHE_MAGIC);
+                output.writeInt(CACHE_VERSION);
+                output.writeInt(importedResources.size());
+                for (Map.Entry<String, String> importedResource : importedResources.entrySet()) {
+                    output.writeUTF(importedResource.getKey());
+                    output.writeUTF(importedResource.getValue());
+                }
+                output.writeInt(beanDefinitions.size());
+                for (XmlBeanDefinition beanDefinition : beanDefinitions.values()) {
+                    output.writeUTF(beanDefinition.getBeanName());
+                    writeNullableString(output, beanDefinition.getBeanClassName());
+                    output.writeUTF(beanDefinition.getScope().name());
+                    output.writeInt(beanDefinition.getConstructorArguments().size());
+                    for (ConstructorArgument argument : beanDefinition.getConstructorArguments()) {
+                        output.writeInt(argument.getIndex());
+                        writeNullableString(output, argument.getType());
+                        writeNullableString(output, argument.getRef());
+                        writeNullableString(output, argument.getValue());
+                    }
+                    writeNullableString(output, beanDefinition.getInitMethodName());
+                    writeNullableString(output, beanDefinition.getFactoryBeanName());
+                    writeNullableString(output, beanDefinition.getFactoryMethodName());
+                }
+            }
+            Files.move(temporaryFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // an unwritable cache directory only costs the next startup another parse
+        }
+    }
+
+
+    // an entry is only trusted if nobody but the current user could have written it or swapped it in
+    private static boolean isPrivate(Path path) {
+        try {
+            UserPrincipal currentUser = FileSystems.getDefault().getUserPrincipalLookupService()
+                    .lookupPrincipalByName(System.getProperty("user.name"));
+            if (!Files.getOwner(path, LinkOption.NOFOLLOW_LINKS).equals(currentUser)) {
+                return false;
+            }
+            return !supportsPosix(path) || Collections.disjoint(
+                    Files.getPosixFilePermissions(path, LinkOption.NOFOLLOW_LINKS), WRITABLE_BY_OTHERS);
+        } catch (IOException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+
+    private static boolean supportsPosix(Path path) {
+        return path != null && Files.getFileAttributeView(path, PosixFileAttributeView.class) != null;
+    }
+
+
+    private static String readNullableString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? input.readUTF() : null;
+    }
+
+
+    private static void writeNullableString(DataOutputStream output, String value) throws IOException {
+        output.writeBoolean(value != null);
+        if (value != null) {
+            output.writeUTF(value);
+        }
+    }
+
+
+    private static final class BeanElement {
+        private final String beanName;
+        private final String beanClassName;
+        private final Scope scope;
+        private final String initMethodName;
+        private final String factoryBeanName;
+        private final String factoryMethodName;
+        private final List<ConstructorArgument> constructorArguments = new ArrayList<>();
+
+        private BeanElement(XMLStreamReader reader, String resource) {
+            String id = attribute(reader, "id");
+            String name = attribute(reader, "name");
+            if (id == null && name == null) {
+                throw new IllegalArgumentException("Bean without id or name, " + resource + " line " + reader.getLocation().getLineNumber());
+            }
+            beanName = (id != null) ? id : name.trim().split("[,;\\s]+")[0];
+            beanClassName = attribute(reader, "class");
+            String scopeName = attribute(reader, "scope");
+            scope = (scopeName == null) ? Scope.SINGLETON : Scope.valueOf(scopeName.toUpperCase(Locale.ROOT));
+            initMethodName = attribute(reader, "init-method");
+            factoryBeanName = attribute(reader, "factory-bean");
+            factoryMethodName = attribute(reader, "factory-method");
+        }
+    }
+}
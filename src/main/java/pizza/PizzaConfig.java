@@ -0,0 +1,9 @@
+package pizza;
+
+import ioc.ComponentScanConfig;
+
+public class PizzaConfig extends ComponentScanConfig {
+    public PizzaConfig() {
+        super("pizza");
+    }
+}
@@ -1,32 +1,22 @@
 package pizza;
 
 import ioc.Config;
-import ioc.JavaConfig;
 import ioc.SimpleIoC;
-import org.springframework.context.ConfigurableApplicationContext;
-import org.springframework.context.support.ClassPathXmlApplicationContext;
-import pizza.dao.OrderDaoImpl;
-import pizza.dao.PizzaDaoImpl;
-import pizza.repo.OrderRepo;
-import pizza.repo.PizzaRepo;
+import ioc.XmlConfig;
 import pizza.repository.Pizza;
 import pizza.repository.PizzaType;
 import pizza.repository.User;
 import pizza.service.OrderService;
-import pizza.service.OrderServiceImpl;
 import pizza.service.PizzaService;
-import pizza.service.PizzaServiceImpl;
-
-import java.util.HashMap;
 
 public class Program {
     public static void main(String[] args) {
 //        SimpleIoC simpleIoC = buildIoC();
 
-        ConfigurableApplicationContext simpleIoC = new ClassPathXmlApplicationContext("serviceContext.xml");
+        SimpleIoC simpleIoC = new SimpleIoC(new XmlConfig("serviceContext.xml"));
 
-        PizzaService pizzaService = (PizzaService) simpleIoC.getBean("pizzaService");
-        OrderService orderService = (OrderService) simpleIoC.getBean("orderService");
+        PizzaService pizzaService = simpleIoC.getBean(PizzaService.class);
+        OrderService orderService = simpleIoC.getBean(OrderService.class);
 
         System.out.println(pizzaService.getAllPizza());
 
@@ -41,14 +31,7 @@ public class Program {
     }
 
     private static SimpleIoC buildIoC() {
-        Config config = new JavaConfig(new HashMap<String, Class<?>>() {{
-            put("orderRepo", OrderRepo.class);
-            put("pizzaRepo", PizzaRepo.class);
-            put("orderDao", OrderDaoImpl.class);
-            put("pizzaDao", PizzaDaoImpl.class);
-            put("orderService", OrderServiceImpl.class);
-            put("pizzaService", PizzaServiceImpl.class);
-        }});
+        Config config = new PizzaConfig();
         return new SimpleIoC(config);
     }
 }
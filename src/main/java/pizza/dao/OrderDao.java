@@ -1,10 +1,17 @@
 package pizza.dao;
 
 import pizza.repository.Order;
+import pizza.repository.OrderFilter;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface OrderDao {
     List<Order> getAllOrders();
+    Stream<Order> streamOrders(OrderFilter filter);
+    List<Order> getOrders(int afterId, int limit);
+    List<Order> getOrders(OrderFilter filter, int afterId, int limit);
     Order save(Order order);
+    List<Order> saveAll(Collection<Order> orders);
 }
@@ -1,27 +1,68 @@
 package pizza.dao;
 
-import pizza.repo.OrderRepo;
+import ioc.Component;
+import pizza.repo.OrderStore;
 import pizza.repository.Order;
+import pizza.repository.OrderFilter;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+@Component("orderDao")
 public class OrderDaoImpl implements OrderDao {
-    private OrderRepo orderRepo;
+    private OrderStore orderStore;
 
-    public OrderDaoImpl(OrderRepo orderRepo) {
-        this.orderRepo = orderRepo;
+    public OrderDaoImpl(OrderStore orderStore) {
+        this.orderStore = orderStore;
     }
 
     @Override
     public List<Order> getAllOrders() {
-        return orderRepo.getOrders();
+        return orderStore.getOrders();
+    }
+
+    @Override
+    public Stream<Order> streamOrders(OrderFilter filter) {
+        return orderStore.streamOrders(filter);
+    }
+
+    @Override
+    public List<Order> getOrders(int afterId, int limit) {
+        return orderStore.getOrders(afterId, limit);
+    }
+
+    @Override
+    public List<Order> getOrders(OrderFilter filter, int afterId, int limit) {
+        return orderStore.getOrders(filter, afterId, limit);
     }
 
     @Override
     public Order save(Order order) {
-        int lastId = orderRepo.getLastId();
-        order.setOrderId(lastId + 1);
-        orderRepo.addOrder(order);
+        order.setOrderId(orderStore.nextId());
+        stampCreation(order, Instant.now());
+        orderStore.addOrder(order);
         return order;
     }
+
+    @Override
+    public List<Order> saveAll(Collection<Order> orders) {
+        List<Order> savedOrders = new ArrayList<>(orders);
+        int orderId = orderStore.nextIds(savedOrders.size());
+        Instant createdAt = Instant.now();
+        for (Order order : savedOrders) {
+            order.setOrderId(orderId++);
+            stampCreation(order, createdAt);
+        }
+        orderStore.addOrders(savedOrders);
+        return savedOrders;
+    }
+
+    private static void stampCreation(Order order, Instant createdAt) {
+        if (order.getCreatedAt() == null) {
+            order.setCreatedAt(createdAt);
+        }
+    }
 }
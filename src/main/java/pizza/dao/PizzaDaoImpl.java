@@ -1,12 +1,14 @@
 package pizza.dao;
 
+import ioc.Component;
 import pizza.repo.PizzaRepo;
 import pizza.repository.Pizza;
 import pizza.repository.PizzaType;
 
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.NoSuchElementException;
 
+@Component("pizzaDao")
 public class PizzaDaoImpl implements PizzaDao {
     private PizzaRepo pizzaRepo;
 
@@ -16,10 +18,7 @@ public class PizzaDaoImpl implements PizzaDao {
 
     @Override
     public List<Pizza> getPizzaByType(PizzaType pizzaType) {
-        List<Pizza> pizzas = pizzaRepo.getPizzas();
-        return pizzas.stream().
-                filter(pizza -> {return pizza.getPizzaType() == pizzaType;  }).
-                collect(Collectors.toList());
+        return pizzaRepo.getPizzasByType(pizzaType);
     }
 
     @Override
@@ -29,7 +28,10 @@ public class PizzaDaoImpl implements PizzaDao {
 
     @Override
     public Pizza getPizzaByName(String pizzaName) {
-        List<Pizza> pizzas = pizzaRepo.getPizzas();
-        return pizzas.stream().filter(pizza -> { return pizza.getTitle().equals(pizzaName); }).findFirst().get();
+        Pizza pizza = pizzaRepo.getPizzaByTitle(pizzaName);
+        if (pizza == null) {
+            throw new NoSuchElementException("No pizza named " + pizzaName);
+        }
+        return pizza;
     }
 }
@@ -0,0 +1,349 @@
+package pizza.repo;
+
+import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.repository.User;
+
+import java.time.Instant;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+// an OrderStore for long order histories: orders are kept as primitive columns instead of object graphs,
+// with users and pizzas stored once in dictionaries and referenced by code, and Order objects are only
+// built when one is read
+//
+// columns are appended under the lock, past the published rows, and then published together with the new
+// size in one immutable Columns snapshot behind a volatile field; an array that grows is copied, so the rows
+// of an older snapshot are never written again and a reader works on the one snapshot it read. Ids are indexed
+// before their rows are published and looked up only within a snapshot, so no read ever takes the lock
+public class ColumnarOrderRepo implements OrderStore {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final PizzaType[] PIZZA_TYPES = PizzaType.values();
+
+    private final AtomicInteger lastId = new AtomicInteger();
+    private int rowCount;
+    private volatile Columns columns;
+
+    // the columns below are only touched under the lock, readers go through the published snapshot
+    private int[] orderIds = new int[INITIAL_CAPACITY];
+    private int[] userCodes = new int[INITIAL_CAPACITY];
+    private double[] totalPrices = new double[INITIAL_CAPACITY];
+    private long[] createdAts = new long[INITIAL_CAPACITY];
+    // the pizzas of row i are pizzaCodes[pizzaOffsets[i]] up to pizzaCodes[pizzaOffsets[i + 1]]
+    private int[] pizzaOffsets = new int[INITIAL_CAPACITY + 1];
+    private int[] pizzaCodes = new int[INITIAL_CAPACITY];
+
+    private User[] users = new User[INITIAL_CAPACITY];
+    private int userCount;
+    private final Map<List<Object>, Integer> userCodesByKey = new HashMap<>();
+
+    private Pizza[] pizzas = new Pizza[INITIAL_CAPACITY];
+    private byte[] pizzaTypes = new byte[INITIAL_CAPACITY];
+    private double[] pizzaPrices = new double[INITIAL_CAPACITY];
+    private int pizzaCount;
+    private final Map<List<Object>, Integer> pizzaCodesByKey = new HashMap<>();
+
+    private final ConcurrentMap<Integer, Integer> rowsByOrderId = new ConcurrentHashMap<>();
+
+    public ColumnarOrderRepo() {
+        columns = new Columns(this);
+    }
+
+    @Override
+    public List<Order> getOrders() {
+        Columns columns = this.columns;
+        return new AbstractList<Order>() {
+            @Override
+            public Order get(int row) {
+                if (row < 0 || row >= columns.size) {
+                    throw new IndexOutOfBoundsException("Row " + row + " of " + columns.size);
+                }
+                return columns.materialize(row);
+            }
+
+            @Override
+            public int size() {
+                return columns.size;
+            }
+        };
+    }
+
+    @Override
+    public Order getOrder(int orderId) {
+        Columns columns = this.columns;
+        Integer row = rowsByOrderId.get(orderId);
+        return (row == null || row >= columns.size) ? null : columns.materialize(row);
+    }
+
+    @Override
+    public Stream<Order> streamOrders(OrderFilter filter) {
+        return streamFrom(columns, 0, filter);
+    }
+
+    @Override
+    public List<Order> getOrders(OrderFilter filter, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        Columns columns = this.columns;
+        int position = 0;
+        if (afterId != 0) {
+            Integer row = rowsByOrderId.get(afterId);
+            if (row == null || row >= columns.size) {
+                throw new IllegalArgumentException("Order with id " + afterId + " does not exist");
+            }
+            position = row + 1;
+        }
+        try (Stream<Order> orders = streamFrom(columns, position, filter)) {
+            return Collections.unmodifiableList(orders.limit(limit).collect(Collectors.toList()));
+        }
+    }
+
+    private static Stream<Order> streamFrom(Columns columns, int position, OrderFilter filter) {
+        if (filter.getUserId() == null && !filter.hasDateRange()) {
+            return IntStream.range(position, columns.size).mapToObj(columns::materialize);
+        }
+        // the filter is evaluated on the columns, only matching rows become Order objects
+        int userId = (filter.getUserId() == null) ? 0 : filter.getUserId();
+        boolean anyUser = filter.getUserId() == null;
+        boolean anyTime = !filter.hasDateRange();
+        long placedFrom = boundOf(filter.getPlacedFrom(), Long.MIN_VALUE + 1);
+        long placedBefore = boundOf(filter.getPlacedBefore(), Long.MAX_VALUE);
+        int[] userCodes = columns.userCodes;
+        User[] users = columns.users;
+        long[] createdAts = columns.createdAts;
+        return IntStream.range(position, columns.size)
+                .filter(row -> anyUser || userCodes[row] >= 0 && users[userCodes[row]].getUserId() == userId)
+                .filter(row -> anyTime || createdAts[row] >= placedFrom && createdAts[row] < placedBefore)
+                .mapToObj(columns::materialize);
+    }
+
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    @Override
+    public int nextIds(int count) {
+        return lastId.getAndAdd(count) + 1;
+    }
+
+    @Override
+    public int getLastId() {
+        return lastId.get();
+    }
+
+    @Override
+    public synchronized void addOrder(Order order) {
+        checkAddable(order, new HashSet<>());
+        append(order);
+        columns = new Columns(this);
+    }
+
+    @Override
+    public synchronized void addOrders(Collection<Order> batch) {
+        Set<Integer> orderIds = new HashSet<>();
+        for (Order order : batch) {
+            checkAddable(order, orderIds);
+        }
+        for (Order order : batch) {
+            append(order);
+        }
+        columns = new Columns(this);
+    }
+
+    // sums the price of every pizza ordered, one pass over the pizza column
+    public Map<PizzaType, Double> getRevenueByPizzaType() {
+        Columns columns = this.columns;
+        int[] pizzaOffsets = columns.pizzaOffsets;
+        int[] pizzaCodes = columns.pizzaCodes;
+        byte[] pizzaTypes = columns.pizzaTypes;
+        double[] pizzaPrices = columns.pizzaPrices;
+
+        double[] revenue = new double[PIZZA_TYPES.length];
+        for (int index = 0, end = pizzaOffsets[columns.size]; index < end; index++) {
+            int pizzaCode = pizzaCodes[index];
+            if (pizzaTypes[pizzaCode] >= 0) {
+                revenue[pizzaTypes[pizzaCode]] += pizzaPrices[pizzaCode];
+            }
+        }
+
+        Map<PizzaType, Double> revenueByPizzaType = new EnumMap<>(PizzaType.class);
+        for (PizzaType pizzaType : PIZZA_TYPES) {
+            revenueByPizzaType.put(pizzaType, revenue[pizzaType.ordinal()]);
+        }
+        return revenueByPizzaType;
+    }
+
+    // counts per user code in one pass over the user column, boxing only once per distinct user
+    public Map<Integer, Integer> getOrderCountsByUser() {
+        Columns columns = this.columns;
+        int[] userCodes = columns.userCodes;
+        User[] users = columns.users;
+
+        int[] counts = new int[users.length];
+        for (int row = 0; row < columns.size; row++) {
+            if (userCodes[row] >= 0) {
+                counts[userCodes[row]]++;
+            }
+        }
+
+        Map<Integer, Integer> countsByUser = new HashMap<>();
+        for (int userCode = 0; userCode < counts.length; userCode++) {
+            if (counts[userCode] > 0) {
+                countsByUser.merge(users[userCode].getUserId(), counts[userCode], Integer::sum);
+            }
+        }
+        return countsByUser;
+    }
+
+    // bounds past the range of the column match everything on that side; NO_TIME stays below every bound
+    private static long boundOf(Instant instant, long unbounded) {
+        if (instant == null) {
+            return unbounded;
+        }
+        try {
+            return OrderCodec.epochNanosOf(instant);
+        } catch (IllegalArgumentException e) {
+            return (instant.getEpochSecond() < 0) ? Long.MIN_VALUE + 1 : Long.MAX_VALUE;
+        }
+    }
+
+    // dictionary entries are shared by every row, so callers get copies they are free to modify
+    private static Pizza copyOf(Pizza pizza) {
+        return new Pizza(pizza.getPizzaId(), pizza.getTitle(), pizza.getPizzaType(), pizza.getPrice());
+    }
+
+    private static User copyOf(User user) {
+        return new User(user.getUserId(), user.getFirstName(), user.getLastName());
+    }
+
+    // everything that can reject an order is checked before the first column is written
+    private void checkAddable(Order order, Set<Integer> orderIds) {
+        if (rowsByOrderId.containsKey(order.getOrderId()) || !orderIds.add(order.getOrderId())) {
+            throw new IllegalArgumentException("Order with id " + order.getOrderId() + " already exists");
+        }
+        OrderCodec.epochNanosOf(order.getCreatedAt());
+    }
+
+    private void append(Order order) {
+        int row = rowCount++;
+        if (row == orderIds.length) {
+            int capacity = row * 2;
+            orderIds = Arrays.copyOf(orderIds, capacity);
+            userCodes = Arrays.copyOf(userCodes, capacity);
+            totalPrices = Arrays.copyOf(totalPrices, capacity);
+            createdAts = Arrays.copyOf(createdAts, capacity);
+            pizzaOffsets = Arrays.copyOf(pizzaOffsets, capacity + 1);
+        }
+        List<Pizza> orderedPizzas = (order.getPizzas() == null) ? Collections.emptyList() : order.getPizzas();
+        int pizzaOffset = pizzaOffsets[row];
+        if (pizzaOffset + orderedPizzas.size() > pizzaCodes.length) {
+            pizzaCodes = Arrays.copyOf(pizzaCodes, Math.max(pizzaCodes.length * 2, pizzaOffset + orderedPizzas.size()));
+        }
+        for (Pizza pizza : orderedPizzas) {
+            pizzaCodes[pizzaOffset++] = pizzaCodeOf(pizza);
+        }
+
+        orderIds[row] = order.getOrderId();
+        userCodes[row] = (order.getUser() == null) ? -1 : userCodeOf(order.getUser());
+        totalPrices[row] = order.getTotalPrice();
+        createdAts[row] = OrderCodec.epochNanosOf(order.getCreatedAt());
+        pizzaOffsets[row + 1] = pizzaOffset;
+        rowsByOrderId.put(order.getOrderId(), row);
+        lastId.accumulateAndGet(order.getOrderId(), Math::max);
+    }
+
+    private int userCodeOf(User user) {
+        List<Object> key = Arrays.asList(user.getUserId(), user.getFirstName(), user.getLastName());
+        Integer userCode = userCodesByKey.get(key);
+        if (userCode == null) {
+            userCode = userCount++;
+            if (userCode == users.length) {
+                users = Arrays.copyOf(users, userCode * 2);
+            }
+            users[userCode] = copyOf(user);
+            userCodesByKey.put(key, userCode);
+        }
+        return userCode;
+    }
+
+    private int pizzaCodeOf(Pizza pizza) {
+        List<Object> key = Arrays.asList(pizza.getPizzaId(), pizza.getTitle(), pizza.getPizzaType(), pizza.getPrice());
+        Integer pizzaCode = pizzaCodesByKey.get(key);
+        if (pizzaCode == null) {
+            pizzaCode = pizzaCount++;
+            if (pizzaCode == pizzas.length) {
+                pizzas = Arrays.copyOf(pizzas, pizzaCode * 2);
+                pizzaTypes = Arrays.copyOf(pizzaTypes, pizzaCode * 2);
+                pizzaPrices = Arrays.copyOf(pizzaPrices, pizzaCode * 2);
+            }
+            pizzas[pizzaCode] = copyOf(pizza);
+            pizzaTypes[pizzaCode] = (byte) ((pizza.getPizzaType() == null) ? -1 : pizza.getPizzaType().ordinal());
+            pizzaPrices[pizzaCode] = pizza.getPrice();
+            pizzaCodesByKey.put(key, pizzaCode);
+        }
+        return pizzaCode;
+    }
+
+    // the rows published so far and the arrays holding them, taken from the writer after each append
+    private static final class Columns {
+        private final int size;
+        private final int[] orderIds;
+        private final int[] userCodes;
+        private final double[] totalPrices;
+        private final long[] createdAts;
+        private final int[] pizzaOffsets;
+        private final int[] pizzaCodes;
+        private final User[] users;
+        private final Pizza[] pizzas;
+        private final byte[] pizzaTypes;
+        private final double[] pizzaPrices;
+
+        private Columns(ColumnarOrderRepo repo) {
+            size = repo.rowCount;
+            orderIds = repo.orderIds;
+            userCodes = repo.userCodes;
+            totalPrices = repo.totalPrices;
+            createdAts = repo.createdAts;
+            pizzaOffsets = repo.pizzaOffsets;
+            pizzaCodes = repo.pizzaCodes;
+            users = repo.users;
+            pizzas = repo.pizzas;
+            pizzaTypes = repo.pizzaTypes;
+            pizzaPrices = repo.pizzaPrices;
+        }
+
+        private Order materialize(int row) {
+            int userCode = userCodes[row];
+            List<Pizza> orderedPizzas = new ArrayList<>(pizzaOffsets[row + 1] - pizzaOffsets[row]);
+            for (int index = pizzaOffsets[row]; index < pizzaOffsets[row + 1]; index++) {
+                orderedPizzas.add(copyOf(pizzas[pizzaCodes[index]]));
+            }
+            Order order = new Order();
+            order.setOrderId(orderIds[row]);
+            order.setUser((userCode < 0) ? null : copyOf(users[userCode]));
+            order.setPizzas(orderedPizzas);
+            order.setTotalPrice(totalPrices[row]);
+            order.setCreatedAt(OrderCodec.instantOf(createdAts[row]));
+            return order;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package pizza.repo;
+
+import pizza.repository.Order;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+// an OrderRepo that survives restarts: every order is appended to a memory-mapped log in the directory
+// before addOrder returns, and the in-memory index is rebuilt from that log on startup
+public class MappedOrderRepo extends OrderRepo implements Closeable {
+    public static final int DEFAULT_SEGMENT_SIZE = 16 << 20;
+
+    private final OrderLog log;
+
+    public MappedOrderRepo(Path directory) {
+        this(directory, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedOrderRepo(Path directory, int segmentSize) {
+        log = OrderLog.open(directory, segmentSize);
+        load(log.takeRecoveredOrders());
+    }
+
+    // the log is the only source of orders, a new one starts empty
+    @Override
+    protected Collection<Order> initialOrders() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void addOrder(Order order) {
+        byte[] record = OrderCodec.encode(order);
+        long sequence;
+        // ids are checked and the order is logged and indexed in one step, so the log never holds a rejected order;
+        // only the force happens outside, where concurrent writers share it
+        synchronized (this) {
+            if (getOrder(order.getOrderId()) != null) {
+                throw new IllegalArgumentException("Order with id " + order.getOrderId() + " already exists");
+            }
+            sequence = log.append(Collections.singletonList(record));
+            super.addOrder(order);
+        }
+        log.force(sequence);
+    }
+
+    @Override
+    public void addOrders(Collection<Order> batch) {
+        List<byte[]> records = new ArrayList<>(batch.size());
+        for (Order order : batch) {
+            records.add(OrderCodec.encode(order));
+        }
+        long sequence;
+        synchronized (this) {
+            Set<Integer> orderIds = new HashSet<>();
+            for (Order order : batch) {
+                if (getOrder(order.getOrderId()) != null || !orderIds.add(order.getOrderId())) {
+                    throw new IllegalArgumentException("Order with id " + order.getOrderId() + " already exists");
+                }
+            }
+            sequence = log.append(records);
+            super.addOrders(batch);
+        }
+        log.force(sequence);
+    }
+
+    @Override
+    public void close() {
+        log.close();
+    }
+}
@@ -0,0 +1,128 @@
+package pizza.repo;
+
+import pizza.repository.Order;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.repository.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+// order: id, total price, creation time in epoch nanoseconds (NO_TIME for none),
+//        user (present flag, id, first and last name), pizza count (-1 for none), pizzas
+// pizza: id, title, type ordinal (-1 for none), price
+// strings are a UTF-8 byte count (-1 for null) followed by the bytes
+final class OrderCodec {
+    static final long NO_TIME = Long.MIN_VALUE;
+
+    private static final PizzaType[] PIZZA_TYPES = PizzaType.values();
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private OrderCodec() {
+    }
+
+    static byte[] encode(Order order) {
+        User user = order.getUser();
+        List<Pizza> pizzas = order.getPizzas();
+        byte[] firstName = (user == null) ? null : bytesOf(user.getFirstName());
+        byte[] lastName = (user == null) ? null : bytesOf(user.getLastName());
+        byte[][] titles = new byte[(pizzas == null) ? 0 : pizzas.size()][];
+
+        int size = Integer.BYTES + Double.BYTES + Long.BYTES + 1 + Integer.BYTES;
+        if (user != null) {
+            size += Integer.BYTES + sizeOf(firstName) + sizeOf(lastName);
+        }
+        for (int index = 0; index < titles.length; index++) {
+            titles[index] = bytesOf(pizzas.get(index).getTitle());
+            size += Integer.BYTES + sizeOf(titles[index]) + 1 + Double.BYTES;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(order.getOrderId());
+        buffer.putDouble(order.getTotalPrice());
+        buffer.putLong(epochNanosOf(order.getCreatedAt()));
+        buffer.put((byte) ((user == null) ? 0 : 1));
+        if (user != null) {
+            buffer.putInt(user.getUserId());
+            putString(buffer, firstName);
+            putString(buffer, lastName);
+        }
+        buffer.putInt((pizzas == null) ? -1 : titles.length);
+        for (int index = 0; index < titles.length; index++) {
+            Pizza pizza = pizzas.get(index);
+            buffer.putInt(pizza.getPizzaId());
+            putString(buffer, titles[index]);
+            buffer.put((byte) ((pizza.getPizzaType() == null) ? -1 : pizza.getPizzaType().ordinal()));
+            buffer.putDouble(pizza.getPrice());
+        }
+        return buffer.array();
+    }
+
+    static Order decode(ByteBuffer buffer) {
+        Order order = new Order();
+        order.setOrderId(buffer.getInt());
+        order.setTotalPrice(buffer.getDouble());
+        order.setCreatedAt(instantOf(buffer.getLong()));
+        if (buffer.get() != 0) {
+            order.setUser(new User(buffer.getInt(), getString(buffer), getString(buffer)));
+        }
+        int pizzaCount = buffer.getInt();
+        if (pizzaCount >= 0) {
+            List<Pizza> pizzas = new ArrayList<>(pizzaCount);
+            for (int index = 0; index < pizzaCount; index++) {
+                int pizzaId = buffer.getInt();
+                String title = getString(buffer);
+                byte pizzaType = buffer.get();
+                pizzas.add(new Pizza(pizzaId, title, (pizzaType < 0) ? null : PIZZA_TYPES[pizzaType], buffer.getDouble()));
+            }
+            order.setPizzas(pizzas);
+        }
+        return order;
+    }
+
+    // a long of nanoseconds covers 1677 to 2262, plenty for when an order was placed
+    static long epochNanosOf(Instant instant) {
+        if (instant == null) {
+            return NO_TIME;
+        }
+        try {
+            return Math.addExact(Math.multiplyExact(instant.getEpochSecond(), NANOS_PER_SECOND), instant.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The time " + instant + " is out of range", e);
+        }
+    }
+
+    static Instant instantOf(long epochNanos) {
+        return (epochNanos == NO_TIME) ? null : Instant.ofEpochSecond(0, epochNanos);
+    }
+
+    private static byte[] bytesOf(String value) {
+        return (value == null) ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int sizeOf(byte[] value) {
+        return Integer.BYTES + ((value == null) ? 0 : value.length);
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+        } else {
+            buffer.putInt(value.length);
+            buffer.put(value);
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,306 @@
+package pizza.repo;
+
+import pizza.repository.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// append-only log of memory-mapped, preallocated segments; a segment starts with MAGIC and holds
+// records framed as [length][crc32 of payload][payload], and the zero length of unwritten space ends it
+final class OrderLog implements Closeable {
+    private static final int MAGIC = 0x4f524432;
+    private static final int RECORD_HEADER_SIZE = 2 * Integer.BYTES;
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private List<Order> recoveredOrders = new ArrayList<>();
+
+    private int segmentIndex;
+    private MappedByteBuffer segment;
+    private long appended;
+    private boolean closed;
+
+    private final Object forceLock = new Object();
+    private long forced;
+    private boolean forcing;
+
+    private OrderLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    static OrderLog open(Path directory, int segmentSize) {
+        if (segmentSize <= Integer.BYTES + RECORD_HEADER_SIZE) {
+            throw new IllegalArgumentException("The segment size is too small: " + segmentSize);
+        }
+        OrderLog log = new OrderLog(directory, segmentSize);
+        try {
+            Files.createDirectories(directory);
+            log.recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to open the order log in " + directory, e);
+        }
+        return log;
+    }
+
+    // hands the orders found on startup over once, so the log doesn't keep them alive
+    List<Order> takeRecoveredOrders() {
+        List<Order> orders = recoveredOrders;
+        recoveredOrders = null;
+        return orders;
+    }
+
+    // returns the sequence number to pass to force() to make these records durable
+    synchronized long append(List<byte[]> payloads) {
+        if (closed) {
+            throw new IllegalStateException("The order log is closed");
+        }
+        CRC32 crc = new CRC32();
+        for (byte[] payload : payloads) {
+            if (RECORD_HEADER_SIZE + payload.length > segmentSize - Integer.BYTES) {
+                throw new IllegalArgumentException("An order of " + payload.length + " bytes doesn't fit a segment");
+            }
+        }
+        int firstSegmentIndex = segmentIndex;
+        MappedByteBuffer firstSegment = segment;
+        int firstPosition = segment.position();
+        long firstSequence = appended;
+        try {
+            for (byte[] payload : payloads) {
+                if (segment.remaining() < RECORD_HEADER_SIZE + payload.length) {
+                    roll();
+                }
+                crc.reset();
+                crc.update(payload, 0, payload.length);
+                // the length goes in last, so a record is never visible to recovery before its payload
+                int start = segment.position();
+                segment.position(start + Integer.BYTES);
+                segment.putInt((int) crc.getValue());
+                segment.put(payload);
+                segment.putInt(start, payload.length);
+                appended++;
+            }
+        } catch (IOException e) {
+            UncheckedIOException failure = new UncheckedIOException("Unable to roll the order log in " + directory, e);
+            rollBack(firstSegmentIndex, firstSegment, firstPosition, firstSequence, failure);
+            throw failure;
+        } catch (RuntimeException e) {
+            rollBack(firstSegmentIndex, firstSegment, firstPosition, firstSequence, e);
+            throw e;
+        }
+        return appended;
+    }
+
+    // group commit: one caller forces the segment for everyone who appended before it started,
+    // callers arriving meanwhile wait and are usually covered by that force instead of issuing their own
+    void force(long sequence) {
+        boolean interrupted = false;
+        try {
+            synchronized (forceLock) {
+                while (forced < sequence) {
+                    if (!forcing) {
+                        forcing = true;
+                        break;
+                    }
+                    try {
+                        forceLock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (forced >= sequence) {
+                    return;
+                }
+            }
+
+            long target;
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                target = appended;
+                buffer = segment;
+            }
+            boolean done = false;
+            try {
+                buffer.force();
+                done = true;
+            } finally {
+                synchronized (forceLock) {
+                    forcing = false;
+                    if (done) {
+                        forced = Math.max(forced, target);
+                    }
+                    forceLock.notifyAll();
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        long sequence;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            sequence = appended;
+        }
+        force(sequence);
+    }
+
+    // a rejected batch must not come back on recovery: the part of it already written is zeroed, so that neither
+    // recovery nor a later, shorter append can mistake it for records, and the segments it rolled into are deleted
+    private void rollBack(int firstSegmentIndex, MappedByteBuffer firstSegment, int firstPosition, long firstSequence,
+                          RuntimeException failure) {
+        for (int position = firstPosition, end = firstSegment.position(); position < end; position++) {
+            firstSegment.put(position, (byte) 0);
+        }
+        firstSegment.position(firstPosition);
+        try {
+            firstSegment.force();
+        } catch (RuntimeException e) {
+            failure.addSuppressed(e);
+        }
+        for (int index = firstSegmentIndex + 1; index <= segmentIndex; index++) {
+            try {
+                Files.deleteIfExists(segmentFile(index));
+            } catch (IOException e) {
+                failure.addSuppressed(e);
+            }
+        }
+        segmentIndex = firstSegmentIndex;
+        segment = firstSegment;
+        appended = firstSequence;
+    }
+
+    // force() only covers the current segment, so a full one is made durable before it is left behind
+    private void roll() throws IOException {
+        segment.force();
+        segment = createSegment(++segmentIndex);
+    }
+
+    private void recover() throws IOException {
+        List<Path> segmentFiles = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                segmentFiles.add(file);
+            }
+        }
+        Collections.sort(segmentFiles);
+
+        for (int index = 0; index < segmentFiles.size(); index++) {
+            Path file = segmentFiles.get(index);
+            boolean last = index == segmentFiles.size() - 1;
+            MappedByteBuffer buffer = map(file, Files.size(file));
+            if (last && (buffer.capacity() < Integer.BYTES || buffer.getInt(0) == 0)) {
+                // the process died while creating this segment
+                Files.delete(file);
+                break;
+            }
+            if (buffer.capacity() < Integer.BYTES || buffer.getInt(0) != MAGIC) {
+                throw new IllegalStateException("Corrupt or unsupported order log segment " + file);
+            }
+            buffer.position(Integer.BYTES);
+            if (!readRecords(buffer) && !last) {
+                throw new IllegalStateException("Corrupt order log segment " + file);
+            }
+            segmentIndex = segmentIndexOf(file);
+            segment = buffer;
+        }
+        if (segment != null) {
+            // whatever follows the last valid record was never acknowledged, wipe it so that
+            // no leftover bytes end up behind the next append where recovery could misread them
+            wipe(segment);
+        } else {
+            segment = createSegment(segmentIndex);
+        }
+        forced = appended;
+    }
+
+    // returns false when the scan stopped at a record that was not completely written
+    private boolean readRecords(MappedByteBuffer buffer) {
+        CRC32 crc = new CRC32();
+        while (buffer.remaining() >= RECORD_HEADER_SIZE) {
+            int start = buffer.position();
+            int length = buffer.getInt(start);
+            if (length == 0) {
+                return true;
+            }
+            if (length < 0 || length > buffer.remaining() - RECORD_HEADER_SIZE) {
+                return false;
+            }
+            ByteBuffer payload = buffer.duplicate();
+            payload.position(start + RECORD_HEADER_SIZE);
+            payload.limit(start + RECORD_HEADER_SIZE + length);
+            crc.reset();
+            crc.update(payload.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(start + Integer.BYTES)) {
+                return false;
+            }
+            recoveredOrders.add(OrderCodec.decode(payload));
+            appended++;
+            buffer.position(start + RECORD_HEADER_SIZE + length);
+        }
+        return true;
+    }
+
+    private static void wipe(MappedByteBuffer buffer) {
+        int start = buffer.position();
+        boolean dirty = false;
+        for (int position = start; position < buffer.capacity() && !dirty; position++) {
+            dirty = buffer.get(position) != 0;
+        }
+        if (dirty) {
+            byte[] zeros = new byte[Math.min(8192, buffer.remaining())];
+            while (buffer.hasRemaining()) {
+                buffer.put(zeros, 0, Math.min(zeros.length, buffer.remaining()));
+            }
+            buffer.force();
+            buffer.position(start);
+        }
+    }
+
+    private MappedByteBuffer createSegment(int index) throws IOException {
+        MappedByteBuffer buffer = map(segmentFile(index), segmentSize);
+        buffer.putInt(MAGIC);
+        return buffer;
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format("%010d", index) + SEGMENT_SUFFIX);
+    }
+
+    private static MappedByteBuffer map(Path file, long size) throws IOException {
+        // the mapping stays valid after the channel is closed
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+
+    private static int segmentIndexOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Unexpected file in the order log: " + file, e);
+        }
+    }
+}
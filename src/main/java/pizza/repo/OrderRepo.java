@@ -1,31 +1,223 @@
 package pizza.repo;
 
+import ioc.Component;
 import pizza.repository.Order;
+import pizza.repository.OrderFilter;
 import pizza.repository.Pizza;
 import pizza.repository.PizzaType;
 import pizza.repository.User;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public class OrderRepo {
-    private List<Order> orders = new ArrayList<Order>(){{
-        add(new Order(1,
-                Arrays.asList(new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100),
-                        new Pizza(4, "Bacon", PizzaType.PIZZA_THREE, 130)),
-                new User(1, "John", "Doe")));
-    }};
+@Component
+public class OrderRepo implements OrderStore {
+    private static final int CHUNK_SHIFT = 10;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    // the position of an id that is reserved by a writer but not published yet
+    private static final Integer PENDING = -1;
+
+    private final AtomicInteger lastId = new AtomicInteger();
+    private final ConcurrentMap<Integer, Integer> positionsById = new ConcurrentHashMap<>();
+    // orders in the order they were added, in fixed-size chunks that are never moved. A writer claims its slots
+    // with one atomic add, fills them and then moves published past them; a reader takes published once and
+    // sees a stable snapshot of everything below it however many orders are added meanwhile
+    private final AtomicReference<Order[][]> chunks = new AtomicReference<>(new Order[1][]);
+    private final AtomicInteger claimed = new AtomicInteger();
+    private volatile int published;
+
+    // the only constructor: the container autowires the first declared one, and generated AOT code needs it public
+    public OrderRepo() {
+        appendAll(initialOrders());
+    }
 
+    @Override
     public List<Order> getOrders() {
-        return orders;
+        return snapshot(0);
+    }
+
+    @Override
+    public Order getOrder(int orderId) {
+        int position = positionOf(orderId);
+        return (position < 0) ? null : orderAt(position);
+    }
+
+    @Override
+    public Stream<Order> streamOrders(OrderFilter filter) {
+        return streamFrom(0, filter);
+    }
+
+    @Override
+    public List<Order> getOrders(OrderFilter filter, int afterId, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("The page size must be positive");
+        }
+        int position = 0;
+        if (afterId != 0) {
+            position = positionOf(afterId);
+            if (position < 0) {
+                throw new IllegalArgumentException("Order with id " + afterId + " does not exist");
+            }
+            position++;
+        }
+        try (Stream<Order> orders = streamFrom(position, filter)) {
+            return Collections.unmodifiableList(orders.limit(limit).collect(Collectors.toList()));
+        }
     }
 
+    @Override
+    public int nextId() {
+        return lastId.incrementAndGet();
+    }
+
+    // the ids are reserved with a single atomic add
+    @Override
+    public int nextIds(int count) {
+        return lastId.getAndAdd(count) + 1;
+    }
+
+    @Override
     public void addOrder(Order order) {
-        orders.add(order);
+        append(order);
+    }
+
+    @Override
+    public void addOrders(Collection<Order> batch) {
+        appendAll(batch);
     }
 
+    @Override
     public int getLastId() {
-        return (orders.size() == 0) ? 0 : orders.get(orders.size()-1).getOrderId();
+        return lastId.get();
+    }
+
+    // the sample order a new repo starts with; it runs in the constructor, before any field of a subclass is
+    // set, so a subclass that brings orders of its own returns none here and hands them to load() instead
+    protected Collection<Order> initialOrders() {
+        return Collections.singletonList(new Order(1,
+                Arrays.asList(new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100),
+                        new Pizza(4, "Bacon", PizzaType.PIZZA_THREE, 130)),
+                new User(1, "John", "Doe")));
+    }
+
+    // adds orders without going through addOrders, which a subclass may have overridden to persist them
+    protected void load(Collection<Order> orders) {
+        appendAll(orders);
+    }
+
+    private Stream<Order> streamFrom(int position, OrderFilter filter) {
+        return snapshot(position).stream().filter(filter::test);
+    }
+
+    private int positionOf(int orderId) {
+        Integer position = positionsById.get(orderId);
+        return (position == null) ? -1 : position;
+    }
+
+    private List<Order> snapshot(int from) {
+        int to = published;
+        int size = Math.max(0, to - from);
+        return new AbstractList<Order>() {
+            @Override
+            public Order get(int index) {
+                if (index < 0 || index >= size) {
+                    throw new IndexOutOfBoundsException("Index " + index + " of " + size);
+                }
+                return orderAt(from + index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private Order orderAt(int position) {
+        return chunks.get()[position >>> CHUNK_SHIFT][position & (CHUNK_SIZE - 1)];
+    }
+
+    private void append(Order order) {
+        reserve(order.getOrderId());
+        int position = claimed.getAndIncrement();
+        chunkOf(position)[position & (CHUNK_SIZE - 1)] = order;
+        // orders stored with an id of their own must never be handed out again by nextId()
+        lastId.accumulateAndGet(order.getOrderId(), Math::max);
+        publish(position, position + 1);
+        positionsById.put(order.getOrderId(), position);
+    }
+
+    // every id of the batch is reserved before the first slot is claimed, so a rejected batch leaves no trace
+    private void appendAll(Collection<Order> batch) {
+        List<Integer> reservedIds = new ArrayList<>(batch.size());
+        try {
+            for (Order order : batch) {
+                reserve(order.getOrderId());
+                reservedIds.add(order.getOrderId());
+            }
+        } catch (IllegalArgumentException e) {
+            for (Integer orderId : reservedIds) {
+                positionsById.remove(orderId, PENDING);
+            }
+            throw e;
+        }
+
+        int first = claimed.getAndAdd(batch.size());
+        int position = first;
+        int maxId = 0;
+        for (Order order : batch) {
+            chunkOf(position)[position++ & (CHUNK_SIZE - 1)] = order;
+            maxId = Math.max(maxId, order.getOrderId());
+        }
+        lastId.accumulateAndGet(maxId, Math::max);
+        publish(first, position);
+        for (Order order : batch) {
+            positionsById.put(order.getOrderId(), first++);
+        }
+    }
+
+    private void reserve(int orderId) {
+        if (positionsById.putIfAbsent(orderId, PENDING) != null) {
+            throw new IllegalArgumentException("Order with id " + orderId + " already exists");
+        }
+    }
+
+    // the directory of chunks is copied whenever a chunk is added, so writers adding chunks at the same time
+    // can't lose each other's, and a chunk once added stays the same array for good
+    private Order[] chunkOf(int position) {
+        int chunk = position >>> CHUNK_SHIFT;
+        while (true) {
+            Order[][] current = chunks.get();
+            if (chunk < current.length && current[chunk] != null) {
+                return current[chunk];
+            }
+            Order[][] next = Arrays.copyOf(current,
+                    (chunk < current.length) ? current.length : Math.max(current.length * 2, chunk + 1));
+            for (int index = 0; index <= chunk; index++) {
+                if (next[index] == null) {
+                    next[index] = new Order[CHUNK_SIZE];
+                }
+            }
+            chunks.compareAndSet(current, next);
+        }
+    }
+
+    // slots are published in the order they were claimed, so a writer waits for those claimed just before it;
+    // ids are only indexed afterwards, so getOrder never finds an order a snapshot taken then would not include
+    private void publish(int from, int to) {
+        while (published != from) {
+            Thread.yield();
+        }
+        published = to;
     }
 }
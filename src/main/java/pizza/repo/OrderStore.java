@@ -0,0 +1,38 @@
+package pizza.repo;
+
+import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+// where orders are kept: OrderRepo holds them as objects, ColumnarOrderRepo as primitive columns
+public interface OrderStore {
+    // a view of the orders added so far, later orders don't show up in it
+    List<Order> getOrders();
+
+    Order getOrder(int orderId);
+
+    Stream<Order> streamOrders(OrderFilter filter);
+
+    default List<Order> getOrders(int afterId, int limit) {
+        return getOrders(OrderFilter.all(), afterId, limit);
+    }
+
+    // pages follow the order in which orders were added, so an order saved while pages are being read
+    // always ends up on a later page; an afterId of 0 starts from the beginning
+    List<Order> getOrders(OrderFilter filter, int afterId, int limit);
+
+    int nextId();
+
+    // returns the first of count consecutive ids
+    int nextIds(int count);
+
+    int getLastId();
+
+    void addOrder(Order order);
+
+    // a batch with an id that is taken is rejected as a whole
+    void addOrders(Collection<Order> batch);
+}
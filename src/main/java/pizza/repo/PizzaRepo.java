@@ -1,32 +1,88 @@
 package pizza.repo;
 
-
+import ioc.CacheEvict;
+import ioc.Component;
 import pizza.repository.Pizza;
 import pizza.repository.PizzaType;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
+@Component
 public class PizzaRepo {
-    private List<Pizza> pizzas = new ArrayList<Pizza>(){{
-        add(new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100));
-        add(new Pizza(2, "Cheese", PizzaType.PIZZA_TWO, 150));
-        add(new Pizza(3, "Chicken", PizzaType.PIZZA_ONE, 120));
-        add(new Pizza(4, "Bacon", PizzaType.PIZZA_THREE, 130));
-        add(new Pizza(5, "Margarita", PizzaType.PIZZA_THREE, 100));
-    }};
+    private volatile PizzaIndex index = new PizzaIndex(Arrays.asList(
+            new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100),
+            new Pizza(2, "Cheese", PizzaType.PIZZA_TWO, 150),
+            new Pizza(3, "Chicken", PizzaType.PIZZA_ONE, 120),
+            new Pizza(4, "Bacon", PizzaType.PIZZA_THREE, 130),
+            new Pizza(5, "Margarita", PizzaType.PIZZA_THREE, 100)));
 
     public List<Pizza> getPizzas() {
-        return pizzas;
+        return index.pizzas;
+    }
+
+    public Pizza getPizzaByTitle(String title) {
+        return index.pizzasByTitle.get(title);
     }
 
-    public void addPizza(Pizza pizza) {
-        pizzas.add(pizza);
+    public List<Pizza> getPizzasByType(PizzaType pizzaType) {
+        return index.pizzasByType.get(pizzaType);
+    }
+
+    // the menu is read on every request and rarely changed, so writers copy and readers never lock
+    @CacheEvict("pizzas")
+    public synchronized void addPizza(Pizza pizza) {
+        index = index.with(pizza);
     }
 
     public int getLastId() {
+        List<Pizza> pizzas = index.pizzas;
         return (pizzas.size() == 0) ? 0 : pizzas.get(pizzas.size()-1).getPizzaId();
     }
 
 
+    private static final class PizzaIndex {
+        private final List<Pizza> pizzas;
+        private final Map<String, Pizza> pizzasByTitle;
+        private final Map<PizzaType, List<Pizza>> pizzasByType;
+
+        private PizzaIndex(List<Pizza> pizzas) {
+            Map<String, Pizza> pizzasByTitle = new HashMap<>();
+            Map<PizzaType, List<Pizza>> pizzasByType = new EnumMap<>(PizzaType.class);
+            for (PizzaType pizzaType : PizzaType.values()) {
+                pizzasByType.put(pizzaType, new ArrayList<>());
+            }
+            for (Pizza pizza : pizzas) {
+                pizzasByTitle.putIfAbsent(pizza.getTitle(), pizza);
+                pizzasByType.get(pizza.getPizzaType()).add(pizza);
+            }
+            for (Map.Entry<PizzaType, List<Pizza>> pizzasOfType : pizzasByType.entrySet()) {
+                pizzasOfType.setValue(Collections.unmodifiableList(pizzasOfType.getValue()));
+            }
+
+            this.pizzas = Collections.unmodifiableList(new ArrayList<>(pizzas));
+            this.pizzasByTitle = pizzasByTitle;
+            this.pizzasByType = pizzasByType;
+        }
+
+        private PizzaIndex(List<Pizza> pizzas, Map<String, Pizza> pizzasByTitle, Map<PizzaType, List<Pizza>> pizzasByType) {
+            this.pizzas = pizzas;
+            this.pizzasByTitle = pizzasByTitle;
+            this.pizzasByType = pizzasByType;
+        }
+
+        private PizzaIndex with(Pizza pizza) {
+            List<Pizza> pizzas = new ArrayList<>(this.pizzas);
+            pizzas.add(pizza);
+
+            Map<String, Pizza> pizzasByTitle = new HashMap<>(this.pizzasByTitle);
+            pizzasByTitle.putIfAbsent(pizza.getTitle(), pizza);
+
+            Map<PizzaType, List<Pizza>> pizzasByType = new EnumMap<>(this.pizzasByType);
+            List<Pizza> pizzasOfType = new ArrayList<>(pizzasByType.get(pizza.getPizzaType()));
+            pizzasOfType.add(pizza);
+            pizzasByType.put(pizza.getPizzaType(), Collections.unmodifiableList(pizzasOfType));
+
+            return new PizzaIndex(Collections.unmodifiableList(pizzas), pizzasByTitle, pizzasByType);
+        }
+    }
 }
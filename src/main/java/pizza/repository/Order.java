@@ -1,5 +1,6 @@
 package pizza.repository;
 
+import java.time.Instant;
 import java.util.List;
 
 public class Order {
@@ -7,6 +8,7 @@ public class Order {
     private List<Pizza> pizzas;
     private User user;
     private double totalPrice;
+    private Instant createdAt;
 
     public Order(){}
 
@@ -59,6 +61,14 @@ public class Order {
         this.totalPrice = totalPrice;
     }
 
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
     @Override
     public String toString() {
         return "Order{" +
@@ -66,6 +76,7 @@ public class Order {
                 ", pizzas=" + pizzas +
                 ", user=" + user +
                 ", totalPrice=" + totalPrice +
+                ", createdAt=" + createdAt +
                 '}';
     }
 }
@@ -0,0 +1,77 @@
+package pizza.repository;
+
+import java.time.Instant;
+
+// criteria are kept as plain values rather than a Predicate, so a store can evaluate them on its own representation
+public final class OrderFilter {
+    private static final OrderFilter ALL = new OrderFilter(null, null, null);
+
+    private final Integer userId;
+    private final Instant placedFrom;
+    private final Instant placedBefore;
+
+    private OrderFilter(Integer userId, Instant placedFrom, Instant placedBefore) {
+        this.userId = userId;
+        this.placedFrom = placedFrom;
+        this.placedBefore = placedBefore;
+    }
+
+    public static OrderFilter all() {
+        return ALL;
+    }
+
+    public OrderFilter forUser(int userId) {
+        return new OrderFilter(userId, placedFrom, placedBefore);
+    }
+
+    // inclusive
+    public OrderFilter placedFrom(Instant placedFrom) {
+        return new OrderFilter(userId, placedFrom, placedBefore);
+    }
+
+    // exclusive
+    public OrderFilter placedBefore(Instant placedBefore) {
+        return new OrderFilter(userId, placedFrom, placedBefore);
+    }
+
+    public Integer getUserId() {
+        return userId;
+    }
+
+    public Instant getPlacedFrom() {
+        return placedFrom;
+    }
+
+    public Instant getPlacedBefore() {
+        return placedBefore;
+    }
+
+    public boolean hasDateRange() {
+        return placedFrom != null || placedBefore != null;
+    }
+
+    public boolean test(Order order) {
+        if (userId != null && (order.getUser() == null || order.getUser().getUserId() != userId)) {
+            return false;
+        }
+        return isInDateRange(order.getCreatedAt());
+    }
+
+    // orders without a creation time fall outside every date range
+    public boolean isInDateRange(Instant createdAt) {
+        if (createdAt == null) {
+            return !hasDateRange();
+        }
+        return (placedFrom == null || !createdAt.isBefore(placedFrom))
+                && (placedBefore == null || createdAt.isBefore(placedBefore));
+    }
+
+    @Override
+    public String toString() {
+        return "OrderFilter{" +
+                "userId=" + userId +
+                ", placedFrom=" + placedFrom +
+                ", placedBefore=" + placedBefore +
+                '}';
+    }
+}
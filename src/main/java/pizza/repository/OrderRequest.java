@@ -0,0 +1,35 @@
+package pizza.repository;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class OrderRequest {
+    private final User user;
+    private final List<Pizza> pizzas;
+
+    public OrderRequest(User user, Pizza... pizzas) {
+        this(user, Arrays.asList(pizzas));
+    }
+
+    public OrderRequest(User user, List<Pizza> pizzas) {
+        this.user = user;
+        this.pizzas = Collections.unmodifiableList(pizzas);
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public List<Pizza> getPizzas() {
+        return pizzas;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderRequest{" +
+                "user=" + user +
+                ", pizzas=" + pizzas +
+                '}';
+    }
+}
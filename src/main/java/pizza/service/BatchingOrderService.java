@@ -0,0 +1,177 @@
+package pizza.service;
+
+import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+import pizza.repository.OrderRequest;
+import pizza.repository.Pizza;
+import pizza.repository.User;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// coalesces concurrent placeOrder calls into placeOrders batches; one drain task runs at a time, so
+// while a batch is being saved the next one fills up instead of every caller paying its own round trip.
+// A batch that isn't full can linger for a bounded time so orders arriving just behind it still join it
+public class BatchingOrderService implements OrderService {
+    // how long a lingering drain parks between looking for more orders
+    private static final long LINGER_STEP_NANOS = 50_000;
+
+    private final OrderService orderService;
+    private final Executor executor;
+    private final int maxBatchSize;
+    private final long lingerNanos;
+    private final ConcurrentLinkedQueue<PendingOrder> pendingOrders = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+
+    public BatchingOrderService(OrderService orderService, Executor executor, int maxBatchSize) {
+        this(orderService, executor, maxBatchSize, 0);
+    }
+
+    public BatchingOrderService(OrderService orderService, Executor executor, int maxBatchSize, long lingerNanos) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("The batch size must be positive");
+        }
+        if (lingerNanos < 0) {
+            throw new IllegalArgumentException("The linger time can't be negative");
+        }
+        this.orderService = orderService;
+        this.executor = executor;
+        this.maxBatchSize = maxBatchSize;
+        this.lingerNanos = lingerNanos;
+    }
+
+    @Override
+    public List<Order> getAllOrders() {
+        return orderService.getAllOrders();
+    }
+
+    @Override
+    public Stream<Order> streamOrders(OrderFilter filter) {
+        return orderService.streamOrders(filter);
+    }
+
+    @Override
+    public List<Order> getOrders(int afterId, int limit) {
+        return orderService.getOrders(afterId, limit);
+    }
+
+    @Override
+    public List<Order> getOrders(OrderFilter filter, int afterId, int limit) {
+        return orderService.getOrders(filter, afterId, limit);
+    }
+
+    @Override
+    public Order placeOrder(User user, Pizza... pizzas) {
+        try {
+            return placeOrderAsync(user, pizzas).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public List<Order> placeOrders(Collection<OrderRequest> orderRequests) {
+        return orderService.placeOrders(orderRequests);
+    }
+
+    public CompletableFuture<Order> placeOrderAsync(User user, Pizza... pizzas) {
+        PendingOrder pendingOrder = new PendingOrder(new OrderRequest(user, pizzas));
+        pendingOrders.add(pendingOrder);
+        scheduleDrain();
+        return pendingOrder.order;
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RuntimeException e) {
+                draining.set(false);
+                failPendingOrders(e);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            List<PendingOrder> batch = new ArrayList<>(maxBatchSize);
+            List<OrderRequest> orderRequests = new ArrayList<>(maxBatchSize);
+            long deadline = 0;
+            PendingOrder pendingOrder;
+            while ((pendingOrder = pendingOrders.poll()) != null) {
+                if (batch.isEmpty()) {
+                    deadline = System.nanoTime() + lingerNanos;
+                }
+                batch.add(pendingOrder);
+                orderRequests.add(pendingOrder.orderRequest);
+                if (batch.size() == maxBatchSize || !awaitMoreOrders(deadline)) {
+                    placeBatch(batch, orderRequests);
+                    batch.clear();
+                    orderRequests.clear();
+                }
+            }
+        } finally {
+            draining.set(false);
+            // an order enqueued after the last poll but before the flag was cleared would otherwise wait forever
+            if (!pendingOrders.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+
+    // the window is counted from the first order of the batch, so no order lingers longer than lingerNanos
+    private boolean awaitMoreOrders(long deadline) {
+        while (pendingOrders.isEmpty()) {
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                return false;
+            }
+            LockSupport.parkNanos(Math.min(remainingNanos, LINGER_STEP_NANOS));
+        }
+        return true;
+    }
+
+    private void placeBatch(List<PendingOrder> batch, List<OrderRequest> orderRequests) {
+        try {
+            List<Order> orders = orderService.placeOrders(orderRequests);
+            for (int index = 0; index < batch.size(); index++) {
+                batch.get(index).order.complete(orders.get(index));
+            }
+        } catch (Throwable e) {
+            for (PendingOrder pendingOrder : batch) {
+                pendingOrder.order.completeExceptionally(e);
+            }
+            // errors included: the callers get the failure, and the drain thread carries on with the next batch
+        }
+    }
+
+    private void failPendingOrders(RuntimeException e) {
+        PendingOrder pendingOrder;
+        while ((pendingOrder = pendingOrders.poll()) != null) {
+            pendingOrder.order.completeExceptionally(e);
+        }
+    }
+
+    private static final class PendingOrder {
+        private final OrderRequest orderRequest;
+        private final CompletableFuture<Order> order = new CompletableFuture<>();
+
+        private PendingOrder(OrderRequest orderRequest) {
+            this.orderRequest = orderRequest;
+        }
+    }
+}
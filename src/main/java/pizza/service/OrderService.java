@@ -1,12 +1,20 @@
 package pizza.service;
 
 import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+import pizza.repository.OrderRequest;
 import pizza.repository.Pizza;
 import pizza.repository.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface OrderService {
     List<Order> getAllOrders();
+    Stream<Order> streamOrders(OrderFilter filter);
+    List<Order> getOrders(int afterId, int limit);
+    List<Order> getOrders(OrderFilter filter, int afterId, int limit);
     Order placeOrder(User user, Pizza ...pizzas);
+    List<Order> placeOrders(Collection<OrderRequest> orderRequests);
 }
@@ -1,13 +1,22 @@
 package pizza.service;
 
+import ioc.CacheEvict;
+import ioc.Cached;
+import ioc.Component;
 import pizza.dao.OrderDao;
 import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+import pizza.repository.OrderRequest;
 import pizza.repository.Pizza;
 import pizza.repository.User;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
+@Component("orderService")
 public class OrderServiceImpl implements OrderService {
     private OrderDao orderDao;
 
@@ -16,16 +25,44 @@ public class OrderServiceImpl implements OrderService {
     }
 
     @Override
+    @Cached("orders")
     public List<Order> getAllOrders() {
         return orderDao.getAllOrders();
     }
 
+    // streams and pages are for reading large histories piece by piece, caching them would defeat that
     @Override
+    public Stream<Order> streamOrders(OrderFilter filter) {
+        return orderDao.streamOrders(filter);
+    }
+
+    @Override
+    public List<Order> getOrders(int afterId, int limit) {
+        return orderDao.getOrders(afterId, limit);
+    }
+
+    @Override
+    public List<Order> getOrders(OrderFilter filter, int afterId, int limit) {
+        return orderDao.getOrders(filter, afterId, limit);
+    }
+
+    @Override
+    @CacheEvict("orders")
     public Order placeOrder(User user, Pizza... pizzas) {
         Order order = new Order(Arrays.asList(pizzas), user);
         return orderDao.save(order);
     }
 
+    @Override
+    @CacheEvict("orders")
+    public List<Order> placeOrders(Collection<OrderRequest> orderRequests) {
+        List<Order> orders = new ArrayList<>(orderRequests.size());
+        for (OrderRequest orderRequest : orderRequests) {
+            orders.add(new Order(orderRequest.getPizzas(), orderRequest.getUser()));
+        }
+        return orderDao.saveAll(orders);
+    }
+
     public  Order createEmptyOrder(Integer i){
         return new Order();
     }
@@ -1,11 +1,14 @@
 package pizza.service;
 
+import ioc.Cached;
+import ioc.Component;
 import pizza.dao.PizzaDao;
 import pizza.repository.Pizza;
 import pizza.repository.PizzaType;
 
 import java.util.List;
 
+@Component("pizzaService")
 public class PizzaServiceImpl implements PizzaService {
     private PizzaDao pizzaDao;
 
@@ -14,16 +17,19 @@ public class PizzaServiceImpl implements PizzaService {
     }
 
     @Override
+    @Cached("pizzas")
     public List<Pizza> getPizzaByType(PizzaType pizzaType) {
         return pizzaDao.getPizzaByType(pizzaType);
     }
 
     @Override
+    @Cached("pizzas")
     public List<Pizza> getAllPizza() {
         return pizzaDao.getAllPizza();
     }
 
     @Override
+    @Cached("pizzas")
     public Pizza getPizzaByName(String pizzaName) {
         return pizzaDao.getPizzaByName(pizzaName);
     }
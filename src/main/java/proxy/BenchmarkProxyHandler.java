@@ -1,32 +1,75 @@
 package proxy;
 
-import ioc.Benchmark;
-import org.apache.commons.lang3.time.StopWatch;
-
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 public class BenchmarkProxyHandler implements InvocationHandler {
-    private Object bean;
-    private StopWatch stopWatch = new StopWatch();
+    private final Object bean;
+    private final Map<Method, MethodDispatch> dispatchTable;
+    private final Map<String, MethodStatistics> statistics;
 
     public BenchmarkProxyHandler(Object bean) {
+        this(bean, bean.getClass().getInterfaces());
+    }
+
+    public BenchmarkProxyHandler(Object bean, Class<?>[] interfaces) {
+        this(bean, interfaces, new ConcurrentSkipListMap<>());
+    }
+
+    public BenchmarkProxyHandler(Object bean, Class<?>[] interfaces, ConcurrentMap<String, MethodStatistics> statistics) {
+        this(bean, interfaces, statistics, new ResultCaches());
+    }
+
+    public BenchmarkProxyHandler(Object bean, Class<?>[] interfaces, ConcurrentMap<String, MethodStatistics> statistics,
+                                 ResultCaches caches) {
         this.bean = bean;
+        this.dispatchTable = buildDispatchTable(bean, interfaces, statistics, caches);
+        this.statistics = Collections.unmodifiableMap(statistics);
+    }
+
+    private static Map<Method, MethodDispatch> buildDispatchTable(Object bean, Class<?>[] interfaces,
+                                                                  ConcurrentMap<String, MethodStatistics> statisticsBySignature,
+                                                                  ResultCaches caches) {
+        Map<Method, MethodDispatch> dispatchTable = new HashMap<>();
+        try {
+            for (Class<?> anInterface : interfaces) {
+                for (Method method : anInterface.getMethods()) {
+                    dispatchTable.put(method, MethodDispatch.of(bean, method, statisticsBySignature, caches));
+                }
+            }
+            for (String objectMethodName : new String[]{"hashCode", "toString"}) {
+                Method method = Object.class.getMethod(objectMethodName);
+                dispatchTable.put(method, MethodDispatch.of(bean, method, statisticsBySignature, caches));
+            }
+            Method equals = Object.class.getMethod("equals", Object.class);
+            dispatchTable.put(equals, MethodDispatch.of(bean, equals, statisticsBySignature, caches));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Unable to proxy " + bean.getClass().getName(), e);
+        }
+        return dispatchTable;
+    }
+
+    static String signatureOf(Method method) {
+        StringJoiner parameters = new StringJoiner(", ", method.getName() + "(", ")");
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            parameters.add(parameterType.getSimpleName());
+        }
+        return parameters.toString();
+    }
+
+    public Map<String, MethodStatistics> getStatistics() {
+        return statistics;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
-        method = bean.getClass().getDeclaredMethod(method.getName(), method.getParameterTypes());
-
-        if (method.isAnnotationPresent(Benchmark.class)) {
-            stopWatch.start();
-            Object retValue = method.invoke(bean, args);
-            stopWatch.stop();
-            System.out.println("Method call was finished in " + stopWatch.getTime(TimeUnit.MILLISECONDS) + " milliseconds");
-            stopWatch.reset();
-            return retValue;
+        MethodDispatch dispatch = dispatchTable.get(method);
+        if (dispatch == null) {
+            throw new IllegalStateException("Method " + method + " is not implemented by " + bean.getClass().getName());
         }
-        return method.invoke(bean, args);
+        return dispatch.dispatch(args);
     }
 }
@@ -0,0 +1,146 @@
+package proxy;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+    // 2^5 sub-buckets per power of two keeps the relative error of any reported value around 3%
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (Long.SIZE - 1 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+    private volatile Interval current = new Interval();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        Interval interval = current;
+        interval.writersStarted.increment();
+        // a reset may have swapped the interval out before this writer announced itself; record into the new one
+        while (interval != current) {
+            interval.writersFinished.increment();
+            interval = current;
+            interval.writersStarted.increment();
+        }
+        try {
+            interval.record(nanos);
+        } finally {
+            interval.writersFinished.increment();
+        }
+    }
+
+    public long getCount() {
+        return current.count.sum();
+    }
+
+    public long getTotalNanos() {
+        return current.totalNanos.sum();
+    }
+
+    public long getMinNanos() {
+        long min = current.minNanos.get();
+        return (min == Long.MAX_VALUE) ? 0 : min;
+    }
+
+    public long getMaxNanos() {
+        return current.maxNanos.get();
+    }
+
+    public LatencySnapshot snapshot() {
+        return current.snapshot();
+    }
+
+    // the buckets, count, total, min and max of a value always go to the same snapshot
+    public synchronized LatencySnapshot snapshotAndReset() {
+        Interval interval = current;
+        current = new Interval();
+        while (interval.writersFinished.sum() != interval.writersStarted.sum()) {
+            Thread.yield();
+        }
+        return interval.snapshot();
+    }
+
+    private static LatencySnapshot createSnapshot(long[] counts, long totalNanos, long minNanos, long maxNanos) {
+        long count = 0;
+        int highestIndex = -1;
+        for (int index = 0; index < counts.length; index++) {
+            if (counts[index] != 0) {
+                count += counts[index];
+                highestIndex = index;
+            }
+        }
+        if (count == 0) {
+            return LatencySnapshot.EMPTY;
+        }
+        // the max lies in the highest non-empty bucket unless a writer is still halfway through recording it
+        if (bucketIndex(maxNanos) != highestIndex) {
+            maxNanos = highestValueInBucket(highestIndex);
+        }
+        return new LatencySnapshot(count, totalNanos,
+                (minNanos == Long.MAX_VALUE) ? 0 : minNanos, maxNanos,
+                valueAtPercentile(counts, count, 50.0, highestIndex, maxNanos),
+                valueAtPercentile(counts, count, 90.0, highestIndex, maxNanos),
+                valueAtPercentile(counts, count, 99.0, highestIndex, maxNanos),
+                valueAtPercentile(counts, count, 99.9, highestIndex, maxNanos));
+    }
+
+    private static long valueAtPercentile(long[] counts, long count, double percentile, int highestIndex, long maxNanos) {
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int index = 0; index < highestIndex; index++) {
+            seen += counts[index];
+            if (seen >= rank) {
+                return highestValueInBucket(index);
+            }
+        }
+        return maxNanos;
+    }
+
+    private static final class Interval {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator minNanos = new LongAccumulator(Math::min, Long.MAX_VALUE);
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder writersStarted = new LongAdder();
+        private final LongAdder writersFinished = new LongAdder();
+
+        // max goes first so a live snapshot never sees a bucket above it
+        void record(long nanos) {
+            maxNanos.accumulate(nanos);
+            minNanos.accumulate(nanos);
+            totalNanos.add(nanos);
+            buckets.getAndIncrement(bucketIndex(nanos));
+            count.increment();
+        }
+
+        LatencySnapshot snapshot() {
+            long[] counts = new long[BUCKET_COUNT];
+            for (int index = 0; index < BUCKET_COUNT; index++) {
+                counts[index] = buckets.get(index);
+            }
+            return createSnapshot(counts, totalNanos.sum(), minNanos.get(), maxNanos.get());
+        }
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestValueInBucket(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        long lowestValue = (SUB_BUCKET_COUNT + subBucket) << shift;
+        return lowestValue + (1L << shift) - 1;
+    }
+}
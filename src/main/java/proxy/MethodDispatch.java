@@ -0,0 +1,89 @@
+package proxy;
+
+import ioc.Benchmark;
+import ioc.CacheEvict;
+import ioc.Cached;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentMap;
+
+// public because generated subclass proxies, which live in their own class loader, call dispatch
+public final class MethodDispatch {
+    private static final MethodType DISPATCH_TYPE = MethodType.methodType(Object.class, Object[].class);
+
+    private final Method method;
+    private final MethodHandle handle;
+    private final MethodStatistics statistics;
+    private final ResultCache cache;
+    private final ResultCaches caches;
+    private final String[] evictedCacheNames;
+
+    private MethodDispatch(Method method, MethodHandle handle, MethodStatistics statistics, ResultCache cache,
+                           ResultCaches caches, String[] evictedCacheNames) {
+        this.method = method;
+        this.handle = handle;
+        this.statistics = statistics;
+        this.cache = cache;
+        this.caches = caches;
+        this.evictedCacheNames = evictedCacheNames;
+    }
+
+    static MethodDispatch of(Object bean, Method method, ConcurrentMap<String, MethodStatistics> statisticsBySignature,
+                             ResultCaches caches) throws NoSuchMethodException, IllegalAccessException {
+        Method implementation = bean.getClass().getMethod(method.getName(), method.getParameterTypes());
+        implementation.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(implementation)
+                .bindTo(bean)
+                .asSpreader(Object[].class, method.getParameterCount())
+                .asType(DISPATCH_TYPE);
+        MethodStatistics methodStatistics = null;
+        if (implementation.isAnnotationPresent(Benchmark.class)) {
+            methodStatistics = statisticsBySignature.computeIfAbsent(BenchmarkProxyHandler.signatureOf(implementation),
+                    MethodStatistics::new);
+        }
+        Cached cached = implementation.getAnnotation(Cached.class);
+        CacheEvict cacheEvict = implementation.getAnnotation(CacheEvict.class);
+        // a cache hit never runs the method, so it could not say whether the eviction should happen
+        if (cached != null && cacheEvict != null) {
+            throw new IllegalArgumentException("Method " + implementation + " can't be both @Cached and @CacheEvict");
+        }
+        return new MethodDispatch(method, handle, methodStatistics, (cached == null) ? null : caches.cacheFor(cached),
+                (cacheEvict == null) ? null : caches, (cacheEvict == null) ? null : cacheEvict.value());
+    }
+
+    public Object dispatch(Object[] args) throws Throwable {
+        if (cache == null) {
+            Object result = invokeTimed(args);
+            if (evictedCacheNames != null) {
+                caches.evict(evictedCacheNames);
+            }
+            return result;
+        }
+
+        // a hit is not timed, the statistics describe the work the bean actually did
+        // the generation is read before the bean runs, so a result that may predate a concurrent eviction isn't kept
+        Object key = ResultCache.keyOf(method, args);
+        long generation = cache.generation();
+        Object result = cache.get(key);
+        if (result == ResultCache.MISS) {
+            result = invokeTimed(args);
+            cache.put(key, result, generation);
+        }
+        return result;
+    }
+
+    private Object invokeTimed(Object[] args) throws Throwable {
+        if (statistics == null) {
+            return (Object) handle.invokeExact(args);
+        }
+        long start = System.nanoTime();
+        try {
+            return (Object) handle.invokeExact(args);
+        } finally {
+            statistics.record(System.nanoTime() - start);
+        }
+    }
+}
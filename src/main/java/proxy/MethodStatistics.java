@@ -0,0 +1,55 @@
+package proxy;
+
+public class MethodStatistics {
+    private final String methodSignature;
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    public MethodStatistics(String methodSignature) {
+        this.methodSignature = methodSignature;
+    }
+
+    public void record(long elapsedNanos) {
+        histogram.record(elapsedNanos);
+    }
+
+    public String getMethodSignature() {
+        return methodSignature;
+    }
+
+    public long getCount() {
+        return histogram.getCount();
+    }
+
+    public long getTotalTimeNanos() {
+        return histogram.getTotalNanos();
+    }
+
+    public long getMinTimeNanos() {
+        return histogram.getMinNanos();
+    }
+
+    public long getMaxTimeNanos() {
+        return histogram.getMaxNanos();
+    }
+
+    public double getMeanTimeNanos() {
+        long count = getCount();
+        return (count == 0) ? 0 : (double) getTotalTimeNanos() / count;
+    }
+
+    public LatencySnapshot snapshot() {
+        return histogram.snapshot();
+    }
+
+    public LatencySnapshot snapshotAndReset() {
+        return histogram.snapshotAndReset();
+    }
+
+    @Override
+    public String toString() {
+        return "MethodStatistics{" +
+                "methodSignature='" + methodSignature + '\'' +
+                ", latency=" + snapshot() +
+                '}';
+    }
+}
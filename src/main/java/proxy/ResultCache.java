@@ -0,0 +1,192 @@
+package proxy;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// segmented LRU: every segment is an access ordered LinkedHashMap behind its own lock,
+// so readers of different keys rarely contend and eviction is O(1)
+public class ResultCache {
+    static final Object MISS = new Object();
+    private static final Object NULL = new Object();
+    private static final int MAX_SEGMENTS = 16;
+
+    private final String name;
+    private final long ttlNanos;
+    private final Segment[] segments;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    // bumped by every clear(), so a result computed before an eviction can be told apart from one computed after
+    private volatile long generation;
+
+    public ResultCache(String name, int maxSize, long ttlNanos) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache '" + name + "' must hold at least one entry");
+        }
+        this.name = name;
+        this.ttlNanos = ttlNanos;
+        // the capacities add up to exactly maxSize, and every segment holds at least one entry
+        int segmentCount = Math.min(MAX_SEGMENTS, Integer.highestOneBit(maxSize));
+        segments = new Segment[segmentCount];
+        for (int index = 0; index < segmentCount; index++) {
+            segments[index] = new Segment(maxSize / segmentCount + ((index < maxSize % segmentCount) ? 1 : 0));
+        }
+    }
+
+    Object get(Object key) {
+        Segment segment = segmentOf(key);
+        CacheEntry entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.expiresAt > 0) {
+                segment.remove(key);
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return MISS;
+        }
+        hits.increment();
+        return (entry.value == NULL) ? null : entry.value;
+    }
+
+    long generation() {
+        return generation;
+    }
+
+    void put(Object key, Object value) {
+        put(key, value, generation);
+    }
+
+    // drops the value if the cache was cleared since generation was read; the check happens under the segment
+    // lock, so a value put before a concurrent clear() bumped the generation is removed by that clear() instead
+    boolean put(Object key, Object value, long generation) {
+        CacheEntry entry = new CacheEntry((value == null) ? NULL : value, System.nanoTime() + ttlNanos);
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            if (this.generation != generation) {
+                return false;
+            }
+            segment.put(key, entry);
+            return true;
+        }
+    }
+
+    public synchronized void clear() {
+        generation++;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    private Segment segmentOf(Object key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (segments.length - 1)];
+    }
+
+    static Object keyOf(Method method, Object[] args) {
+        return new Key(method, (args == null) ? new Object[0] : args);
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCache{" +
+                "name='" + name + '\'' +
+                ", size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    private static final class CacheEntry {
+        private final Object value;
+        private final long expiresAt;
+
+        private CacheEntry(Object value, long expiresAt) {
+            this.value = value;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<Object, CacheEntry> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, CacheEntry> eldest) {
+            if (size() <= capacity) {
+                return false;
+            }
+            evictions.increment();
+            return true;
+        }
+    }
+
+    private static final class Key {
+        private final Method method;
+        private final Object[] args;
+        private final int hash;
+
+        private Key(Method method, Object[] args) {
+            this.method = method;
+            this.args = args.clone();
+            this.hash = 31 * method.hashCode() + Arrays.deepHashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && method.equals(key.method) && Arrays.deepEquals(args, key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
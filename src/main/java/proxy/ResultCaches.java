@@ -0,0 +1,37 @@
+package proxy;
+
+import ioc.Cached;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+// caches are shared by name, so any bean of a container can evict what another one cached;
+// the first @Cached method of a name decides its size and time to live
+public class ResultCaches {
+    private final ConcurrentMap<String, ResultCache> caches = new ConcurrentHashMap<>();
+
+    ResultCache cacheFor(Cached cached) {
+        return caches.computeIfAbsent(cached.value(),
+                name -> new ResultCache(name, cached.maxSize(), TimeUnit.MILLISECONDS.toNanos(cached.ttlMillis())));
+    }
+
+    void evict(String[] cacheNames) {
+        for (String cacheName : cacheNames) {
+            ResultCache cache = caches.get(cacheName);
+            if (cache != null) {
+                cache.clear();
+            }
+        }
+    }
+
+    public ResultCache get(String cacheName) {
+        return caches.get(cacheName);
+    }
+
+    public Map<String, ResultCache> asMap() {
+        return Collections.unmodifiableMap(caches);
+    }
+}
@@ -0,0 +1,398 @@
+package proxy;
+
+import ioc.Benchmark;
+import ioc.CacheEvict;
+import ioc.Cached;
+import org.springframework.asm.ClassWriter;
+import org.springframework.asm.Label;
+import org.springframework.asm.MethodVisitor;
+import org.springframework.asm.Opcodes;
+import org.springframework.asm.Type;
+import org.springframework.objenesis.ObjenesisStd;
+import org.springframework.objenesis.instantiator.ObjectInstantiator;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+
+// generates one subclass per bean class whose public methods call the bean directly with their declared types;
+// calls to non-public methods reach the proxy instance itself, not the bean. @Cached methods need their
+// arguments boxed for the cache key anyway, so they go through a MethodDispatch like the interface proxy
+public final class SubclassProxyFactory {
+    private static final String TARGET_FIELD = "target";
+    private static final String STATISTICS_FIELD = "statistics";
+    private static final String EVICTIONS_FIELD = "evictions";
+    private static final String EVICTIONS_DESCRIPTOR = Type.getDescriptor(Runnable[].class);
+    private static final String DISPATCHES_FIELD = "dispatches";
+    private static final String DISPATCHES_DESCRIPTOR = Type.getDescriptor(MethodDispatch[].class);
+    private static final String METHOD_DISPATCH = Type.getInternalName(MethodDispatch.class);
+    private static final String STATISTICS_DESCRIPTOR = Type.getDescriptor(MethodStatistics[].class);
+    private static final String METHOD_STATISTICS = Type.getInternalName(MethodStatistics.class);
+
+    private static final ObjenesisStd OBJENESIS = new ObjenesisStd(false);
+    private static final ClassValue<ProxyClass> PROXY_CLASSES = new ClassValue<ProxyClass>() {
+        @Override
+        protected ProxyClass computeValue(Class<?> beanClass) {
+            return isSubclassable(beanClass) ? generate(beanClass) : ProxyClass.UNSUPPORTED;
+        }
+    };
+
+    private SubclassProxyFactory() {
+    }
+
+    public static boolean canProxy(Class<?> beanClass) {
+        return PROXY_CLASSES.get(beanClass) != ProxyClass.UNSUPPORTED;
+    }
+
+    public static <T> T createProxy(T bean, ConcurrentMap<String, MethodStatistics> statisticsBySignature) {
+        return createProxy(bean, statisticsBySignature, new ResultCaches());
+    }
+
+    public static <T> T createProxy(T bean, ConcurrentMap<String, MethodStatistics> statisticsBySignature, ResultCaches caches) {
+        ProxyClass proxyClass = PROXY_CLASSES.get(bean.getClass());
+        if (proxyClass == ProxyClass.UNSUPPORTED) {
+            throw new IllegalArgumentException("Unable to subclass " + bean.getClass().getName());
+        }
+        MethodStatistics[] statistics = new MethodStatistics[proxyClass.timedSignatures.length];
+        for (int index = 0; index < statistics.length; index++) {
+            statistics[index] = statisticsBySignature.computeIfAbsent(proxyClass.timedSignatures[index], MethodStatistics::new);
+        }
+        Runnable[] evictions = new Runnable[proxyClass.evictedCacheNames.length];
+        for (int index = 0; index < evictions.length; index++) {
+            String[] evictedCacheNames = proxyClass.evictedCacheNames[index];
+            evictions[index] = () -> caches.evict(evictedCacheNames);
+        }
+        MethodDispatch[] dispatches = new MethodDispatch[proxyClass.dispatchedMethods.length];
+        try {
+            for (int index = 0; index < dispatches.length; index++) {
+                dispatches[index] = MethodDispatch.of(bean, proxyClass.dispatchedMethods[index], statisticsBySignature, caches);
+            }
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalArgumentException("Unable to proxy " + bean.getClass().getName(), e);
+        }
+        Object proxy = proxyClass.instantiator.newInstance();
+        try {
+            proxyClass.targetSetter.invoke(proxy, bean);
+            proxyClass.statisticsSetter.invoke(proxy, statistics);
+            proxyClass.evictionsSetter.invoke(proxy, evictions);
+            proxyClass.dispatchesSetter.invoke(proxy, dispatches);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to initialize the proxy of " + bean.getClass().getName(), e);
+        }
+        @SuppressWarnings("unchecked")
+        T typedProxy = (T) proxy;
+        return typedProxy;
+    }
+
+    private static boolean isSubclassable(Class<?> beanClass) {
+        int modifiers = beanClass.getModifiers();
+        if (!Modifier.isPublic(modifiers) || Modifier.isFinal(modifiers) || Modifier.isAbstract(modifiers)
+                || beanClass.isArray() || beanClass.isPrimitive()) {
+            return false;
+        }
+        for (Method method : beanClass.getMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) || method.getDeclaringClass() == Object.class) {
+                continue;
+            }
+            if (Modifier.isFinal(method.getModifiers()) || !isPublic(method.getReturnType())) {
+                return false;
+            }
+            for (Class<?> parameterType : method.getParameterTypes()) {
+                if (!isPublic(parameterType)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isPublic(Class<?> type) {
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        return type.isPrimitive() || Modifier.isPublic(type.getModifiers());
+    }
+
+    private static Collection<Method> overridableMethods(Class<?> beanClass) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Method method : beanClass.getMethods()) {
+            int modifiers = method.getModifiers();
+            if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                methods.putIfAbsent(method.getName() + Type.getMethodDescriptor(method), method);
+            }
+        }
+        return methods.values();
+    }
+
+    private static ProxyClass generate(Class<?> beanClass) {
+        String proxyClassName = beanClass.getName() + "$$SubclassProxy";
+        String proxyInternalName = proxyClassName.replace('.', '/');
+        String beanInternalName = Type.getInternalName(beanClass);
+        String beanDescriptor = Type.getDescriptor(beanClass);
+
+        ClassWriter classWriter = new ClassWriter(ClassWriter.COMPUTE_MAXS | ClassWriter.COMPUTE_FRAMES) {
+            @Override
+            protected String getCommonSuperClass(String firstType, String secondType) {
+                return "java/lang/Object";
+            }
+        };
+        classWriter.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC | Opcodes.ACC_SUPER | Opcodes.ACC_SYNTHETIC,
+                proxyInternalName, null, beanInternalName, null);
+        classWriter.visitField(Opcodes.ACC_PUBLIC, TARGET_FIELD, beanDescriptor, null, null).visitEnd();
+        classWriter.visitField(Opcodes.ACC_PUBLIC, STATISTICS_FIELD, STATISTICS_DESCRIPTOR, null, null).visitEnd();
+        classWriter.visitField(Opcodes.ACC_PUBLIC, EVICTIONS_FIELD, EVICTIONS_DESCRIPTOR, null, null).visitEnd();
+        classWriter.visitField(Opcodes.ACC_PUBLIC, DISPATCHES_FIELD, DISPATCHES_DESCRIPTOR, null, null).visitEnd();
+
+        List<String> timedSignatures = new ArrayList<>();
+        List<String[]> evictedCacheNames = new ArrayList<>();
+        List<Method> dispatchedMethods = new ArrayList<>();
+        for (Method method : overridableMethods(beanClass)) {
+            Method implementation = implementationOf(beanClass, method);
+            if (!implementation.isBridge() && implementation.isAnnotationPresent(Cached.class)) {
+                writeDispatchedMethod(classWriter, method, proxyInternalName, dispatchedMethods.size());
+                dispatchedMethods.add(method);
+                continue;
+            }
+            int statisticsIndex = -1;
+            int evictionIndex = -1;
+            if (!implementation.isBridge() && implementation.isAnnotationPresent(Benchmark.class)) {
+                statisticsIndex = timedSignatures.size();
+                timedSignatures.add(BenchmarkProxyHandler.signatureOf(implementation));
+            }
+            CacheEvict cacheEvict = implementation.getAnnotation(CacheEvict.class);
+            if (cacheEvict != null) {
+                evictionIndex = evictedCacheNames.size();
+                evictedCacheNames.add(cacheEvict.value());
+            }
+            writeMethod(classWriter, method, proxyInternalName, beanInternalName, beanDescriptor, statisticsIndex, evictionIndex);
+        }
+        classWriter.visitEnd();
+
+        Class<?> proxyClass = new ProxyClassLoader(beanClass.getClassLoader()).define(proxyClassName, classWriter.toByteArray());
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            return new ProxyClass(OBJENESIS.getInstantiatorOf(proxyClass),
+                    lookup.findSetter(proxyClass, TARGET_FIELD, beanClass),
+                    lookup.findSetter(proxyClass, STATISTICS_FIELD, MethodStatistics[].class),
+                    lookup.findSetter(proxyClass, EVICTIONS_FIELD, Runnable[].class),
+                    lookup.findSetter(proxyClass, DISPATCHES_FIELD, MethodDispatch[].class),
+                    timedSignatures.toArray(new String[0]), evictedCacheNames.toArray(new String[0][]),
+                    dispatchedMethods.toArray(new Method[0]));
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Method implementationOf(Class<?> beanClass, Method method) {
+        try {
+            return beanClass.getMethod(method.getName(), method.getParameterTypes());
+        } catch (NoSuchMethodException e) {
+            return method;
+        }
+    }
+
+    private static void writeMethod(ClassWriter classWriter, Method method, String proxyInternalName,
+                                    String beanInternalName, String beanDescriptor, int statisticsIndex, int evictionIndex) {
+        String descriptor = Type.getMethodDescriptor(method);
+        Type returnType = Type.getReturnType(method);
+        String[] exceptions = new String[method.getExceptionTypes().length];
+        for (int index = 0; index < exceptions.length; index++) {
+            exceptions[index] = Type.getInternalName(method.getExceptionTypes()[index]);
+        }
+
+        MethodVisitor code = classWriter.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), descriptor, null, exceptions);
+        code.visitCode();
+        int startSlot = 1;
+        for (Type argumentType : Type.getArgumentTypes(method)) {
+            startSlot += argumentType.getSize();
+        }
+
+        if (statisticsIndex < 0) {
+            writeDelegation(code, method, beanInternalName, beanDescriptor, proxyInternalName, descriptor);
+            writeEviction(code, proxyInternalName, evictionIndex);
+            code.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        } else {
+            Label tryStart = new Label();
+            Label tryEnd = new Label();
+            Label handler = new Label();
+            code.visitTryCatchBlock(tryStart, tryEnd, handler, null);
+            code.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+            code.visitVarInsn(Opcodes.LSTORE, startSlot);
+            code.visitLabel(tryStart);
+            writeDelegation(code, method, beanInternalName, beanDescriptor, proxyInternalName, descriptor);
+            code.visitLabel(tryEnd);
+            writeRecord(code, proxyInternalName, statisticsIndex, startSlot);
+            writeEviction(code, proxyInternalName, evictionIndex);
+            code.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+            code.visitLabel(handler);
+            writeRecord(code, proxyInternalName, statisticsIndex, startSlot);
+            code.visitInsn(Opcodes.ATHROW);
+        }
+        code.visitMaxs(0, 0);
+        code.visitEnd();
+    }
+
+    private static void writeDelegation(MethodVisitor code, Method method, String beanInternalName, String beanDescriptor,
+                                        String proxyInternalName, String descriptor) {
+        code.visitVarInsn(Opcodes.ALOAD, 0);
+        code.visitFieldInsn(Opcodes.GETFIELD, proxyInternalName, TARGET_FIELD, beanDescriptor);
+        int slot = 1;
+        for (Type argumentType : Type.getArgumentTypes(method)) {
+            code.visitVarInsn(argumentType.getOpcode(Opcodes.ILOAD), slot);
+            slot += argumentType.getSize();
+        }
+        code.visitMethodInsn(Opcodes.INVOKEVIRTUAL, beanInternalName, method.getName(), descriptor, false);
+    }
+
+    private static void writeRecord(MethodVisitor code, String proxyInternalName, int statisticsIndex, int startSlot) {
+        code.visitVarInsn(Opcodes.ALOAD, 0);
+        code.visitFieldInsn(Opcodes.GETFIELD, proxyInternalName, STATISTICS_FIELD, STATISTICS_DESCRIPTOR);
+        code.visitLdcInsn(statisticsIndex);
+        code.visitInsn(Opcodes.AALOAD);
+        code.visitMethodInsn(Opcodes.INVOKESTATIC, "java/lang/System", "nanoTime", "()J", false);
+        code.visitVarInsn(Opcodes.LLOAD, startSlot);
+        code.visitInsn(Opcodes.LSUB);
+        code.visitMethodInsn(Opcodes.INVOKEVIRTUAL, METHOD_STATISTICS, "record", "(J)V", false);
+    }
+
+    private static void writeDispatchedMethod(ClassWriter classWriter, Method method, String proxyInternalName, int dispatchIndex) {
+        String[] exceptions = new String[method.getExceptionTypes().length];
+        for (int index = 0; index < exceptions.length; index++) {
+            exceptions[index] = Type.getInternalName(method.getExceptionTypes()[index]);
+        }
+        MethodVisitor code = classWriter.visitMethod(Opcodes.ACC_PUBLIC, method.getName(), Type.getMethodDescriptor(method),
+                null, exceptions);
+        code.visitCode();
+        code.visitVarInsn(Opcodes.ALOAD, 0);
+        code.visitFieldInsn(Opcodes.GETFIELD, proxyInternalName, DISPATCHES_FIELD, DISPATCHES_DESCRIPTOR);
+        code.visitLdcInsn(dispatchIndex);
+        code.visitInsn(Opcodes.AALOAD);
+
+        Type[] argumentTypes = Type.getArgumentTypes(method);
+        code.visitLdcInsn(argumentTypes.length);
+        code.visitTypeInsn(Opcodes.ANEWARRAY, "java/lang/Object");
+        int slot = 1;
+        for (int index = 0; index < argumentTypes.length; index++) {
+            code.visitInsn(Opcodes.DUP);
+            code.visitLdcInsn(index);
+            code.visitVarInsn(argumentTypes[index].getOpcode(Opcodes.ILOAD), slot);
+            box(code, argumentTypes[index]);
+            code.visitInsn(Opcodes.AASTORE);
+            slot += argumentTypes[index].getSize();
+        }
+        code.visitMethodInsn(Opcodes.INVOKEVIRTUAL, METHOD_DISPATCH, "dispatch", "([Ljava/lang/Object;)Ljava/lang/Object;", false);
+
+        Type returnType = Type.getReturnType(method);
+        if (returnType.getSort() == Type.VOID) {
+            code.visitInsn(Opcodes.POP);
+        } else {
+            unbox(code, returnType);
+        }
+        code.visitInsn(returnType.getOpcode(Opcodes.IRETURN));
+        code.visitMaxs(0, 0);
+        code.visitEnd();
+    }
+
+    private static void box(MethodVisitor code, Type type) {
+        String wrapper = wrapperOf(type);
+        if (wrapper != null) {
+            code.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper, "valueOf", "(" + type.getDescriptor() + ")L" + wrapper + ";", false);
+        }
+    }
+
+    private static void unbox(MethodVisitor code, Type type) {
+        String wrapper = wrapperOf(type);
+        if (wrapper != null) {
+            code.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+            code.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, type.getClassName() + "Value", "()" + type.getDescriptor(), false);
+        } else if (!type.getInternalName().equals("java/lang/Object")) {
+            code.visitTypeInsn(Opcodes.CHECKCAST, type.getInternalName());
+        }
+    }
+
+    private static String wrapperOf(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return "java/lang/Boolean";
+            case Type.CHAR:
+                return "java/lang/Character";
+            case Type.BYTE:
+                return "java/lang/Byte";
+            case Type.SHORT:
+                return "java/lang/Short";
+            case Type.INT:
+                return "java/lang/Integer";
+            case Type.FLOAT:
+                return "java/lang/Float";
+            case Type.LONG:
+                return "java/lang/Long";
+            case Type.DOUBLE:
+                return "java/lang/Double";
+            default:
+                return null;
+        }
+    }
+
+    // caches are only evicted when the method returns normally
+    private static void writeEviction(MethodVisitor code, String proxyInternalName, int evictionIndex) {
+        if (evictionIndex < 0) {
+            return;
+        }
+        code.visitVarInsn(Opcodes.ALOAD, 0);
+        code.visitFieldInsn(Opcodes.GETFIELD, proxyInternalName, EVICTIONS_FIELD, EVICTIONS_DESCRIPTOR);
+        code.visitLdcInsn(evictionIndex);
+        code.visitInsn(Opcodes.AALOAD);
+        code.visitMethodInsn(Opcodes.INVOKEINTERFACE, "java/lang/Runnable", "run", "()V", true);
+    }
+
+    private static final class ProxyClass {
+        private static final ProxyClass UNSUPPORTED = new ProxyClass(null, null, null, null, null, null, null, null);
+
+        private final ObjectInstantiator<?> instantiator;
+        private final MethodHandle targetSetter;
+        private final MethodHandle statisticsSetter;
+        private final MethodHandle evictionsSetter;
+        private final MethodHandle dispatchesSetter;
+        private final String[] timedSignatures;
+        private final String[][] evictedCacheNames;
+        private final Method[] dispatchedMethods;
+
+        private ProxyClass(ObjectInstantiator<?> instantiator, MethodHandle targetSetter, MethodHandle statisticsSetter,
+                           MethodHandle evictionsSetter, MethodHandle dispatchesSetter, String[] timedSignatures,
+                           String[][] evictedCacheNames, Method[] dispatchedMethods) {
+            this.instantiator = instantiator;
+            this.targetSetter = targetSetter;
+            this.statisticsSetter = statisticsSetter;
+            this.evictionsSetter = evictionsSetter;
+            this.dispatchesSetter = dispatchesSetter;
+            this.timedSignatures = timedSignatures;
+            this.evictedCacheNames = evictedCacheNames;
+            this.dispatchedMethods = dispatchedMethods;
+        }
+    }
+
+    // a child of the bean's loader, so beans of any loader can be proxied and the proxy class goes away with the bean class
+    private static final class ProxyClassLoader extends ClassLoader {
+        private ProxyClassLoader(ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (MethodStatistics.class.getName().equals(name)) {
+                return MethodStatistics.class;
+            }
+            if (MethodDispatch.class.getName().equals(name)) {
+                return MethodDispatch.class;
+            }
+            return super.loadClass(name, resolve);
+        }
+
+        private Class<?> define(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package ioc;
+
+import org.junit.Test;
+import pizza.PizzaConfig;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AotConfigGeneratorTest {
+
+    public static class InitializedBase {
+        public void init() {
+        }
+    }
+
+    public static class InheritedInitBean extends InitializedBase {
+    }
+
+    @Test
+    public void generatedConfigWiresBeansWithDirectConstructorCalls() throws Exception {
+        String source = new AotConfigGenerator().generate(new PizzaConfig(), "pizza.GeneratedPizzaConfig", "pizza.PizzaConfig");
+
+        assertTrue(source.startsWith("package pizza;"));
+        assertTrue(source.contains("public final class GeneratedPizzaConfig implements Config"));
+        assertTrue(source.contains("dependencies -> new pizza.dao.OrderDaoImpl((pizza.repo.OrderStore) dependencies[0])"));
+        assertTrue(source.contains("new String[]{\"pizzaDao\"}"));
+    }
+
+    @Test
+    public void generatedInitMethodIsCalledDirectly() throws Exception {
+        Config config = new JavaConfig(Collections.singletonMap("repoBean", repository.RepoBean.class));
+
+        String source = new AotConfigGenerator().generate(config, "GeneratedRepoConfig", "test");
+
+        assertTrue(source.contains("bean -> ((repository.RepoBean) bean).init()"));
+        assertTrue(source.contains("true,\n                        Scope.SINGLETON);"));
+    }
+
+    @Test
+    public void initMethodIsResolvedLikeAtRuntime() throws Exception {
+        Config config = new JavaConfig(Collections.singletonMap("bean", InheritedInitBean.class));
+
+        String source = new AotConfigGenerator().generate(config, "GeneratedInitConfig", "test");
+
+        // the conventional init() is only called when the bean class declares it itself
+        assertFalse(BeanCreationPlan.compile(config.beanDefinition("bean")).hasInitMethod());
+        assertFalse(source.contains(".init()"));
+    }
+
+    @Test
+    public void precompiledDefinitionIsCreatedWithoutReflection() {
+        Config config = new Config() {
+            @Override
+            public List<String> beanNames() {
+                return Collections.singletonList("stringBuilder");
+            }
+
+            @Override
+            public BeanDefinition beanDefinition(String beanName) {
+                return new GeneratedBeanDefinition(beanName, StringBuilder.class, new String[0], new Class<?>[0],
+                        dependencies -> new StringBuilder("generated"), bean -> ((StringBuilder) bean).append("-init"), false);
+            }
+        };
+
+        SimpleIoC simpleIoC = new SimpleIoC(config);
+
+        assertEquals("generated-init", simpleIoC.getBean("stringBuilder").toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nonPublicBeanClassesAreRejected() throws Exception {
+        Config config = new JavaConfig(Collections.singletonMap("testBean", SimpleIoCTest.TestBean.class));
+        new AotConfigGenerator().generate(config, "GeneratedTestConfig", "test");
+    }
+}
@@ -0,0 +1,54 @@
+package ioc;
+
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashMap;
+
+import static org.junit.Assert.*;
+
+public class ClassMetadataTest {
+
+    @Test
+    public void metadataIsSharedBetweenContainers() throws Exception {
+        HashMap<String, Class<?>> beans = new HashMap<>();
+        beans.put("testBean", SimpleIoCTest.TestBean.class);
+        beans.put("testBeanWithDependency", SimpleIoCTest.TestBeanWithDependency.class);
+
+        new SimpleIoC(new JavaConfig(beans)).getBean("testBeanWithDependency");
+        ClassMetadata metadata = ClassMetadata.of(SimpleIoCTest.TestBeanWithDependency.class);
+        ClassMetadata.AutowiredConstructor constructor = metadata.getAutowiredConstructor();
+        new SimpleIoC(new JavaConfig(beans)).getBean("testBeanWithDependency");
+
+        assertSame(metadata, ClassMetadata.of(SimpleIoCTest.TestBeanWithDependency.class));
+        assertSame(constructor, metadata.getAutowiredConstructor());
+        assertTrue(metadata.getAssignableTypes().contains(SimpleIoCTest.TestBeanWithDependency.class));
+    }
+
+    @Test
+    public void metadataDoesNotPinClassLoaders() throws Exception {
+        WeakReference<ClassLoader> classLoader = loadAndDescribeBeanInOwnClassLoader();
+
+        for (int attempt = 0; attempt < 50 && classLoader.get() != null; attempt++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertNull(classLoader.get());
+    }
+
+    private WeakReference<ClassLoader> loadAndDescribeBeanInOwnClassLoader() throws Exception {
+        URL testClasses = SimpleIoCTest.TestBean.class.getProtectionDomain().getCodeSource().getLocation();
+        URLClassLoader classLoader = new URLClassLoader(new URL[]{testClasses}, null);
+        Class<?> beanClass = classLoader.loadClass(SimpleIoCTest.TestBean.class.getName());
+        assertNotSame(SimpleIoCTest.TestBean.class, beanClass);
+
+        ClassMetadata metadata = ClassMetadata.of(beanClass);
+        assertNotNull(metadata.getNoArgumentsConstructor());
+        assertNotNull(metadata.getAutowiredConstructor());
+        classLoader.close();
+        return new WeakReference<>(classLoader);
+    }
+}
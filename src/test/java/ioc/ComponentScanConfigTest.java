@@ -0,0 +1,140 @@
+package ioc;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pizza.PizzaConfig;
+import pizza.repo.OrderRepo;
+import pizza.repository.Order;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.repository.User;
+import pizza.service.OrderService;
+import pizza.service.PizzaService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class ComponentScanConfigTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Component
+    public static class ScannedService {}
+
+    @Component("client")
+    public static class ScannedClient {
+        public final ScannedService service;
+
+        public ScannedClient(ScannedService service) {
+            this.service = service;
+        }
+    }
+
+    public static class NotAComponent {}
+
+    @Test
+    public void pizzaComponentsAreFoundAndWired() {
+        Config config = new PizzaConfig();
+
+        assertEquals(new HashSet<>(Arrays.asList("orderRepo", "pizzaRepo", "orderDao", "pizzaDao", "orderService", "pizzaService")),
+                new HashSet<>(config.beanNames()));
+        assertFalse(new SimpleIoC(config).getBean(PizzaService.class).getAllPizza().isEmpty());
+    }
+
+    @Test
+    public void orderRepoIsAutowiredThroughItsOnlyConstructor() {
+        // the container takes the first declared constructor, which is only well defined when there is one
+        assertEquals(1, OrderRepo.class.getDeclaredConstructors().length);
+
+        OrderService orderService = new SimpleIoC(new PizzaConfig()).getBean(OrderService.class);
+        Order order = orderService.placeOrder(new User(2, "Jack", "Jackson"),
+                new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100));
+
+        assertEquals(2, order.getOrderId());
+        assertEquals(2, orderService.getAllOrders().size());
+    }
+
+    @Test
+    public void classpathIsScannedWhenNoIndexIsPresent() {
+        // the test classes don't ship an index, the main classes' index lists nothing in this package
+        Config config = new ComponentScanConfig("ioc");
+
+        assertEquals(Arrays.asList("client", "scannedService"), config.beanNames());
+        SimpleIoC simpleIoC = new SimpleIoC(config);
+        assertSame(simpleIoC.getBean(ScannedService.class), simpleIoC.getBean(ScannedClient.class).service);
+    }
+
+    @Test
+    public void componentIndexIsUsedInsteadOfScanning() throws IOException {
+        Path indexedRoot = indexedRoot(ScannedService.class.getName(), NotAComponent.class.getName(), "pizza.repo.OrderRepo");
+
+        Config config = new ComponentScanConfig(classLoaderWithRoots("ioc", indexedRoot), "ioc");
+
+        assertEquals(Collections.singletonList("scannedService"), config.beanNames());
+    }
+
+    @Test
+    public void rootsWithoutAnIndexAreStillScanned() throws IOException {
+        Path indexedRoot = indexedRoot(ScannedService.class.getName());
+        Path scannedRoot = folder.newFolder("scanned").toPath();
+        Files.createDirectories(scannedRoot.resolve("ioc"));
+        String clientClassFile = "ioc/" + ScannedClient.class.getName().substring("ioc.".length()) + ".class";
+        try (InputStream classFile = getClass().getClassLoader().getResourceAsStream(clientClassFile)) {
+            Files.copy(classFile, scannedRoot.resolve(clientClassFile));
+        }
+
+        Config config = new ComponentScanConfig(classLoaderWithRoots("ioc", indexedRoot, scannedRoot), "ioc");
+
+        assertEquals(Arrays.asList("client", "scannedService"), config.beanNames());
+    }
+
+    @Test
+    public void generatorIndexesAnnotatedClassesOnly() throws Exception {
+        Path classesDirectory = Paths.get(ComponentScanConfigTest.class.getProtectionDomain()
+                .getCodeSource().getLocation().toURI());
+
+        List<String> components = new ComponentIndexGenerator().findComponents(classesDirectory, getClass().getClassLoader());
+
+        assertTrue(components.contains(ScannedService.class.getName()));
+        assertTrue(components.contains(ScannedClient.class.getName()));
+        assertFalse(components.contains(NotAComponent.class.getName()));
+    }
+
+    private Path indexedRoot(String... classNames) throws IOException {
+        Path root = folder.newFolder().toPath();
+        Files.createDirectories(root.resolve("ioc"));
+        Path index = root.resolve(ComponentScanConfig.COMPONENT_INDEX);
+        Files.createDirectories(index.getParent());
+        List<String> lines = new ArrayList<>();
+        lines.add("# generated");
+        lines.addAll(Arrays.asList(classNames));
+        Files.write(index, lines, StandardCharsets.UTF_8);
+        return root;
+    }
+
+    // the classes themselves still come from the test class path, only the package lookup sees these roots
+    private ClassLoader classLoaderWithRoots(String packageName, Path... roots) {
+        return new ClassLoader(getClass().getClassLoader()) {
+            @Override
+            public Enumeration<URL> getResources(String name) throws IOException {
+                if (!packageName.replace('.', '/').equals(name)) {
+                    return super.getResources(name);
+                }
+                List<URL> packageRoots = new ArrayList<>();
+                for (Path root : roots) {
+                    packageRoots.add(root.resolve(name).toUri().toURL());
+                }
+                return Collections.enumeration(packageRoots);
+            }
+        };
+    }
+}
@@ -1,8 +1,21 @@
 package ioc;
 
 import org.junit.Test;
-
+import pizza.dao.PizzaDaoImpl;
+import pizza.repo.PizzaRepo;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.service.PizzaService;
+import pizza.service.PizzaServiceImpl;
+import proxy.ResultCache;
+import repository.RepoBean;
+import repository.RepoBeanInterface;
+
+import java.lang.reflect.Proxy;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.Assert.*;
 
@@ -24,6 +37,133 @@ public class SimpleIoCTest {
 //        }
     }
 
+    static class CycleA {
+        public CycleA(CycleB cycleB) {
+        }
+    }
+
+    static class CycleB {
+        public CycleB(CycleA cycleA) {
+        }
+    }
+
+    static class CycleBreaker {
+        private CycleMember cycleMember;
+
+        public CycleBreaker(CycleMember cycleMember) {
+            this.cycleMember = cycleMember;
+        }
+
+        public CycleBreaker() {
+        }
+
+        public void setCycleMember(CycleMember cycleMember) {
+            this.cycleMember = cycleMember;
+        }
+    }
+
+    static class CycleMember {
+        public final CycleBreaker cycleBreaker;
+
+        public CycleMember(CycleBreaker cycleBreaker) {
+            this.cycleBreaker = cycleBreaker;
+        }
+
+        public void init() {
+            cycleBreaker.setCycleMember(this);
+        }
+    }
+
+    static class SlowTestBean {
+        static final long CREATION_NANOS = TimeUnit.SECONDS.toNanos(1);
+        static final AtomicInteger constructed = new AtomicInteger();
+        static final AtomicInteger initialized = new AtomicInteger();
+        // a clock that only moves while a slow bean is created, so timings in tests don't depend on the machine
+        static final AtomicLong clock = new AtomicLong();
+
+        public SlowTestBean() throws InterruptedException {
+            constructed.incrementAndGet();
+            clock.addAndGet(CREATION_NANOS);
+            Thread.sleep(5);
+        }
+
+        public void init() {
+            initialized.incrementAndGet();
+        }
+    }
+
+    static class SlowTestBeanWithDependency {
+        static final AtomicInteger constructed = new AtomicInteger();
+        public final SlowTestBean slowTestBean;
+
+        public SlowTestBeanWithDependency(SlowTestBean slowTestBean) {
+            constructed.incrementAndGet();
+            SlowTestBean.clock.addAndGet(SlowTestBean.CREATION_NANOS);
+            this.slowTestBean = slowTestBean;
+        }
+    }
+
+    @BeanScope(Scope.PROTOTYPE)
+    static class PrototypeBean {
+        public final TestBean testBean;
+
+        public PrototypeBean(TestBean testBean) {
+            this.testBean = testBean;
+        }
+    }
+
+    @BeanScope(Scope.THREAD)
+    static class ThreadScopedBean {}
+
+    @BeanScope(Scope.REQUEST)
+    static class RequestScopedBean {}
+
+    interface Greeter {}
+
+    static class EnglishGreeter implements Greeter {}
+
+    static class FrenchGreeter implements Greeter {}
+
+    static class GreeterClient {
+        public final Greeter greeter;
+
+        public GreeterClient(@Qualifier("frenchGreeter") Greeter greeter) {
+            this.greeter = greeter;
+        }
+    }
+
+    static class UnqualifiedGreeterClient {
+        public UnqualifiedGreeterClient(Greeter greeter) {
+        }
+    }
+
+    static class LifecycleBean {
+        public final List<String> events = new ArrayList<>();
+
+        public void init() {
+            events.add("init");
+        }
+    }
+
+    static class AsyncInitBean {
+        static volatile CompletableFuture<Void> initialization;
+        volatile boolean initialized;
+
+        public CompletableFuture<Void> init() {
+            return initialization.thenRun(() -> initialized = true);
+        }
+    }
+
+    static class AsyncInitBeanClient {
+        public final AsyncInitBean asyncInitBean;
+        public final TestBean testBean;
+
+        public AsyncInitBeanClient(AsyncInitBean asyncInitBean, TestBean testBean) {
+            this.asyncInitBean = asyncInitBean;
+            this.testBean = testBean;
+        }
+    }
+
     private Config config = new Config() {
         @Override
         public List<String> beanNames() {
@@ -251,4 +391,461 @@ public class SimpleIoCTest {
         TestBean injectedTestBean = (TestBean) simpleIoC.getBean(testBeanName);
         assertSame(injectedTestBean, testBean);
     }
-}
\ No newline at end of file
+
+
+    @Test
+    public void concurrentGetBeanCreatesEachBeanExactlyOnce() throws Exception {
+        int threads = 32;
+        int rounds = 20;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (int round = 0; round < rounds; round++) {
+                SlowTestBean.constructed.set(0);
+                SlowTestBean.initialized.set(0);
+                SlowTestBeanWithDependency.constructed.set(0);
+
+                SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+                    put("slowTestBean", SlowTestBean.class);
+                    put("slowTestBeanWithDependency", SlowTestBeanWithDependency.class);
+                }}));
+
+                CountDownLatch start = new CountDownLatch(1);
+                List<Future<Object>> results = new ArrayList<>();
+                for (int i = 0; i < threads; i++) {
+                    String beanName = (i % 2 == 0) ? "slowTestBean" : "slowTestBeanWithDependency";
+                    results.add(executor.submit(() -> {
+                        start.await();
+                        return simpleIoC.getBean(beanName);
+                    }));
+                }
+                start.countDown();
+
+                Set<Object> slowTestBeans = Collections.newSetFromMap(new IdentityHashMap<>());
+                Set<Object> dependantBeans = Collections.newSetFromMap(new IdentityHashMap<>());
+                for (Future<Object> result : results) {
+                    Object bean = result.get(10, TimeUnit.SECONDS);
+                    if (bean instanceof SlowTestBean) {
+                        slowTestBeans.add(bean);
+                    } else {
+                        dependantBeans.add(bean);
+                        slowTestBeans.add(((SlowTestBeanWithDependency) bean).slowTestBean);
+                    }
+                }
+
+                assertEquals(1, slowTestBeans.size());
+                assertEquals(1, dependantBeans.size());
+                assertEquals(1, SlowTestBean.constructed.get());
+                assertEquals(1, SlowTestBean.initialized.get());
+                assertEquals(1, SlowTestBeanWithDependency.constructed.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void benchmarkedMethodsAreExposedThroughMetrics() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("repoBean", RepoBean.class);
+        }}));
+        RepoBeanInterface repoBean = (RepoBeanInterface) simpleIoC.getBean("repoBean");
+        repoBean.calculate();
+        repoBean.calculate();
+
+        BeanMetrics beanMetrics = simpleIoC.metrics().forBean("repoBean");
+        assertEquals(2, beanMetrics.method("calculate()").getCount());
+        assertEquals(2, beanMetrics.snapshotAndReset().get("calculate()").getCount());
+        assertEquals(0, beanMetrics.snapshot().get("calculate()").getCount());
+        assertTrue(simpleIoC.metrics().forBean("unknownBean").methods().isEmpty());
+    }
+
+    @Test
+    public void beansWithInterfacesGetInterfaceProxiesByDefault() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("repoBean", RepoBean.class);
+        }}));
+
+        assertTrue(Proxy.isProxyClass(simpleIoC.getBean("repoBean").getClass()));
+    }
+
+    @Test
+    public void subclassProxiesCanBeLookedUpByBeanClass() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("repoBean", RepoBean.class);
+        }}));
+        simpleIoC.setProxyMode(ProxyMode.SUBCLASS);
+        RepoBean repoBean = simpleIoC.getBean(RepoBean.class);
+        repoBean.calculate();
+
+        assertNotSame(RepoBean.class, repoBean.getClass());
+        assertEquals(1, simpleIoC.metrics().forBean("repoBean").method("calculate()").getCount());
+        try {
+            simpleIoC.setProxyMode(ProxyMode.INTERFACE);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void refreshCreatesAllBeansAndReportsCriticalPath() {
+        SlowTestBean.constructed.set(0);
+        SlowTestBeanWithDependency.constructed.set(0);
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("testBean", TestBean.class);
+            put("testBeanWithDependency", TestBeanWithDependency.class);
+            put("slowTestBean", SlowTestBean.class);
+            put("slowTestBeanWithDependency", SlowTestBeanWithDependency.class);
+        }}));
+
+        simpleIoC.setNanoClock(SlowTestBean.clock::get);
+        // one creation at a time, so the clock only moves within the slow bean's own creation
+        ForkJoinPool pool = new ForkJoinPool(1);
+        StartupReport report;
+        try {
+            report = simpleIoC.refresh(pool);
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(4, report.getCreationNanos().size());
+        assertEquals(SlowTestBean.CREATION_NANOS, (long) report.getCreationNanos().get("slowTestBean"));
+        assertEquals(0, (long) report.getCreationNanos().get("testBeanWithDependency"));
+        assertEquals(1, SlowTestBean.constructed.get());
+        assertEquals(1, SlowTestBeanWithDependency.constructed.get());
+        assertEquals(Arrays.asList("slowTestBean", "slowTestBeanWithDependency"), report.getCriticalPath());
+        assertEquals(2 * SlowTestBean.CREATION_NANOS, report.getCriticalPathNanos());
+        assertSame(simpleIoC.getBean("testBean"), ((TestBeanWithDependency) simpleIoC.getBean("testBeanWithDependency")).testBean);
+    }
+
+    @Test
+    public void circularDependencyIsReportedWithFullPath() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new LinkedHashMap<String, Class<?>>() {{
+            put("cycleA", CycleA.class);
+            put("cycleB", CycleB.class);
+        }}));
+
+        try {
+            simpleIoC.getBean("cycleA");
+            fail();
+        } catch (CircularDependencyException e) {
+            assertEquals(Arrays.asList("cycleA", "cycleB", "cycleA"), e.getCycle());
+        }
+        try {
+            simpleIoC.refresh();
+            fail();
+        } catch (CircularDependencyException e) {
+            assertEquals(3, e.getCycle().size());
+        }
+    }
+
+    @Test
+    public void circularDependencyIsBrokenWithEarlyReference() {
+        for (String requestedBean : Arrays.asList("cycleBreaker", "cycleMember")) {
+            SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+                put("cycleBreaker", CycleBreaker.class);
+                put("cycleMember", CycleMember.class);
+            }}));
+            simpleIoC.setAllowEarlyReferences(true);
+
+            simpleIoC.getBean(requestedBean);
+
+            CycleBreaker cycleBreaker = (CycleBreaker) simpleIoC.getBean("cycleBreaker");
+            CycleMember cycleMember = (CycleMember) simpleIoC.getBean("cycleMember");
+            assertSame(cycleBreaker, cycleMember.cycleBreaker);
+            assertSame(cycleMember, cycleBreaker.cycleMember);
+        }
+    }
+
+    @Test(expected = CircularDependencyException.class)
+    public void cycleWithoutNoArgumentsConstructorCannotBeBroken() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("cycleA", CycleA.class);
+            put("cycleB", CycleB.class);
+        }}));
+        simpleIoC.setAllowEarlyReferences(true);
+        simpleIoC.getBean("cycleB");
+    }
+
+    @Test
+    public void prototypeBeanIsCreatedOnEveryGetBean() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("testBean", TestBean.class);
+            put("prototypeBean", PrototypeBean.class);
+        }}));
+
+        PrototypeBean first = (PrototypeBean) simpleIoC.getBean("prototypeBean");
+        PrototypeBean second = (PrototypeBean) simpleIoC.getBean("prototypeBean");
+
+        assertNotSame(first, second);
+        assertSame(first.testBean, second.testBean);
+        assertSame(simpleIoC.getBean("testBean"), first.testBean);
+    }
+
+    @Test
+    public void threadScopedBeanIsSharedWithinThreadOnly() throws Exception {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("threadScopedBean", ThreadScopedBean.class);
+        }}));
+        Object bean = simpleIoC.getBean("threadScopedBean");
+        assertSame(bean, simpleIoC.getBean("threadScopedBean"));
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Object otherThreadBean = executor.submit(() -> simpleIoC.getBean("threadScopedBean")).get(10, TimeUnit.SECONDS);
+            assertNotSame(bean, otherThreadBean);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        simpleIoC.clearThreadScope();
+        assertNotSame(bean, simpleIoC.getBean("threadScopedBean"));
+    }
+
+    @Test
+    public void requestScopedBeanLivesAsLongAsItsRequestScope() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("requestScopedBean", RequestScopedBean.class);
+        }}));
+
+        Object first = simpleIoC.callInRequestScope(() -> {
+            Object bean = simpleIoC.getBean("requestScopedBean");
+            assertSame(bean, simpleIoC.getBean("requestScopedBean"));
+            simpleIoC.runInRequestScope(() -> assertNotSame(bean, simpleIoC.getBean("requestScopedBean")));
+            assertSame(bean, simpleIoC.getBean("requestScopedBean"));
+            return bean;
+        });
+        Object second = simpleIoC.callInRequestScope(() -> simpleIoC.getBean("requestScopedBean"));
+
+        assertNotSame(first, second);
+        try {
+            simpleIoC.getBean("requestScopedBean");
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void refreshCreatesSingletonsOnly() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("testBean", TestBean.class);
+            put("requestScopedBean", RequestScopedBean.class);
+        }}));
+
+        StartupReport report = simpleIoC.refresh();
+
+        assertEquals(Long.valueOf(0), report.getCreationNanos().get("requestScopedBean"));
+    }
+
+    @Test
+    public void dependenciesAreResolvedByType() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("plainBean", TestBean.class);
+            put("dependant", TestBeanWithDependency.class);
+        }}));
+
+        TestBeanWithDependency dependant = simpleIoC.getBean(TestBeanWithDependency.class);
+
+        assertSame(simpleIoC.getBean("plainBean"), dependant.testBean);
+        assertSame(dependant.testBean, simpleIoC.getBean(TestBean.class));
+    }
+
+    @Test
+    public void ambiguousDependencyIsResolvedWithQualifier() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("englishGreeter", EnglishGreeter.class);
+            put("frenchGreeter", FrenchGreeter.class);
+            put("greeterClient", GreeterClient.class);
+        }}));
+
+        assertTrue(simpleIoC.getBean(GreeterClient.class).greeter instanceof FrenchGreeter);
+    }
+
+    @Test
+    public void ambiguousDependencyWithoutQualifierIsRejected() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("englishGreeter", EnglishGreeter.class);
+            put("frenchGreeter", FrenchGreeter.class);
+            put("unqualifiedGreeterClient", UnqualifiedGreeterClient.class);
+        }}));
+
+        try {
+            simpleIoC.getBean("unqualifiedGreeterClient");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getCause().getMessage().contains("@Qualifier"));
+        }
+        try {
+            simpleIoC.getBean(Greeter.class);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void childContainerUsesBeansOfItsParent() {
+        SimpleIoC parent = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("testBean", TestBean.class);
+            put("prototypeBean", PrototypeBean.class);
+        }}));
+        SimpleIoC child = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("dependant", TestBeanWithDependency.class);
+        }}), parent);
+
+        TestBeanWithDependency dependant = child.getBean(TestBeanWithDependency.class);
+
+        assertSame(parent.getBean("testBean"), dependant.testBean);
+        assertSame(dependant.testBean, child.getBean(TestBean.class));
+        assertNotSame(child.getBean("prototypeBean"), child.getBean("prototypeBean"));
+        assertEquals(Collections.singletonList("dependant"), child.beanDefinitions());
+        assertEquals(1, child.refresh().getCreationNanos().size());
+        try {
+            parent.getBean("dependant");
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void childBeansShadowParentBeans() {
+        SimpleIoC parent = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("testBean", TestBean.class);
+        }}));
+        SimpleIoC child = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("testBean", TestBean.class);
+            put("dependant", TestBeanWithDependency.class);
+        }}), parent);
+
+        Object childTestBean = child.getBean("testBean");
+
+        assertNotSame(parent.getBean("testBean"), childTestBean);
+        assertSame(childTestBean, ((TestBeanWithDependency) child.getBean("dependant")).testBean);
+        assertSame(parent, child.getParent());
+    }
+
+    @Test
+    public void postProcessorsRunAroundInitForBeansTheyApplyTo() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("lifecycleBean", LifecycleBean.class);
+            put("testBean", TestBean.class);
+        }}));
+        List<String> processedBeans = new ArrayList<>();
+        simpleIoC.addBeanPostProcessor(new BeanPostProcessor() {
+            @Override
+            public boolean appliesTo(ClassMetadata beanClass) {
+                return beanClass.isAssignableTo(LifecycleBean.class);
+            }
+
+            @Override
+            public Object postProcessBeforeInit(Object bean, String beanName) {
+                processedBeans.add(beanName);
+                ((LifecycleBean) bean).events.add("before");
+                return bean;
+            }
+
+            @Override
+            public Object postProcessAfterInit(Object bean, String beanName) {
+                ((LifecycleBean) bean).events.add("after");
+                return bean;
+            }
+        });
+
+        LifecycleBean lifecycleBean = (LifecycleBean) simpleIoC.getBean("lifecycleBean");
+        simpleIoC.getBean("testBean");
+
+        assertEquals(Arrays.asList("before", "init", "after"), lifecycleBean.events);
+        assertEquals(Collections.singletonList("lifecycleBean"), processedBeans);
+        try {
+            simpleIoC.addBeanPostProcessor(beanClass -> true);
+            fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+
+    @Test
+    public void getBeanAsyncCompletesOnceAsyncInitHasCompleted() throws Exception {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("asyncInitBeanClient", AsyncInitBeanClient.class);
+            put("asyncInitBean", AsyncInitBean.class);
+            put("testBean", TestBean.class);
+        }}));
+        AtomicInteger submittedTasks = new AtomicInteger();
+        simpleIoC.setAsyncExecutor(task -> {
+            submittedTasks.incrementAndGet();
+            ForkJoinPool.commonPool().execute(task);
+        });
+        AsyncInitBean.initialization = new CompletableFuture<>();
+
+        CompletableFuture<Object> client = simpleIoC.getBeanAsync("asyncInitBeanClient");
+        assertSame(client, simpleIoC.getBeanAsync("asyncInitBeanClient"));
+        assertFalse(client.isDone());
+
+        AsyncInitBean.initialization.complete(null);
+        AsyncInitBeanClient asyncInitBeanClient = (AsyncInitBeanClient) client.get(5, TimeUnit.SECONDS);
+        assertTrue(asyncInitBeanClient.asyncInitBean.initialized);
+        assertSame(asyncInitBeanClient.asyncInitBean, simpleIoC.getBean("asyncInitBean"));
+        assertSame(asyncInitBeanClient, simpleIoC.getBeanAsync("asyncInitBeanClient").join());
+        assertEquals(3, submittedTasks.get());
+    }
+
+    @Test
+    public void getBeanWaitsForAsyncInit() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("asyncInitBean", AsyncInitBean.class);
+        }}));
+        AsyncInitBean.initialization = CompletableFuture.runAsync(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertTrue(((AsyncInitBean) simpleIoC.getBean("asyncInitBean")).initialized);
+    }
+
+    @Test
+    public void failedAsyncInitFailsTheBeanAndItsDependents() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("asyncInitBeanClient", AsyncInitBeanClient.class);
+            put("asyncInitBean", AsyncInitBean.class);
+            put("testBean", TestBean.class);
+        }}));
+        AsyncInitBean.initialization = new CompletableFuture<>();
+        AsyncInitBean.initialization.completeExceptionally(new IllegalArgumentException("repository unavailable"));
+
+        try {
+            simpleIoC.getBeanAsync("asyncInitBeanClient").join();
+            fail();
+        } catch (CompletionException e) {
+            assertEquals("Unable to create bean 'asyncInitBeanClient'", e.getCause().getMessage());
+            assertEquals("Unable to create bean 'asyncInitBean'", e.getCause().getCause().getMessage());
+        }
+        try {
+            simpleIoC.getBean("asyncInitBean");
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("repository unavailable", e.getCause().getMessage());
+        }
+    }
+
+    @Test
+    public void cachedResultsAreEvictedByOtherBeans() {
+        SimpleIoC simpleIoC = new SimpleIoC(new JavaConfig(new HashMap<String, Class<?>>() {{
+            put("pizzaService", PizzaServiceImpl.class);
+            put("pizzaDao", PizzaDaoImpl.class);
+            put("pizzaRepo", PizzaRepo.class);
+        }}));
+        PizzaService pizzaService = simpleIoC.getBean(PizzaService.class);
+        PizzaRepo pizzaRepo = simpleIoC.getBean(PizzaRepo.class);
+
+        List<Pizza> menu = pizzaService.getAllPizza();
+        assertSame(menu, pizzaService.getAllPizza());
+
+        pizzaRepo.addPizza(new Pizza(6, "Pepperoni", PizzaType.PIZZA_TWO, 140));
+        assertEquals(menu.size() + 1, pizzaService.getAllPizza().size());
+
+        ResultCache pizzas = simpleIoC.metrics().forCache("pizzas");
+        assertEquals(1, pizzas.getHitCount());
+        assertEquals(2, pizzas.getMissCount());
+    }
+}
@@ -0,0 +1,159 @@
+package ioc;
+
+import example_services.ServiceA;
+import example_services.ServiceB;
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import pizza.repository.Order;
+import pizza.service.OrderServiceImpl;
+import pizza.service.PizzaService;
+
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class XmlConfigTest {
+    public static class LabelFactory implements Supplier<String> {
+        @Override
+        public String get() {
+            return "pizza";
+        }
+
+        @Benchmark
+        public StringBuilder createBuilder(String label) {
+            return new StringBuilder(label);
+        }
+    }
+
+    private Path resources;
+    private Path cache;
+
+    @Before
+    public void createDirectories() throws IOException {
+        resources = Files.createTempDirectory("simpleioc-xml");
+        cache = Files.createTempDirectory("simpleioc-xml-cache");
+    }
+
+    @After
+    public void deleteDirectories() throws IOException {
+        for (Path directory : new Path[]{resources, cache}) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    public void serviceContextIsLoadedWithImportsAndFactoryBeans() {
+        XmlConfig config = new XmlConfig("serviceContext.xml", cache);
+
+        assertEquals(Arrays.asList("orderRepo", "pizzaRepo", "orderDao", "pizzaDao", "orderService", "pizzaService",
+                "order", "b", "a"), config.beanNames());
+        SimpleIoC simpleIoC = new SimpleIoC(config);
+        assertFalse(simpleIoC.getBean(PizzaService.class).getAllPizza().isEmpty());
+        assertTrue(simpleIoC.getBean("order") instanceof Order);
+        // the factory bean is proxied by subclass, so createEmptyOrder is called through the proxy
+        assertTrue(simpleIoC.getBean("orderService") instanceof OrderServiceImpl);
+        assertNotSame(OrderServiceImpl.class, simpleIoC.getBean("orderService").getClass());
+        assertTrue(simpleIoC.getBean("b") instanceof ServiceB);
+        assertTrue(simpleIoC.getBean("a") instanceof ServiceA);
+    }
+
+    @Test
+    public void parsedDefinitionsAreCachedUntilAnImportChanges() throws IOException {
+        write("main.xml", "<beans><import resource=\"nested/part.xml\"/>"
+                + "<bean id=\"label\" class=\"java.lang.String\"><constructor-arg value=\"pizza\"/></bean></beans>");
+        write("nested/part.xml", "<beans><bean name=\"builder\" class=\"java.lang.StringBuilder\">"
+                + "<constructor-arg ref=\"label\"/></bean></beans>");
+
+        XmlConfig parsed = new XmlConfig(classLoader(), "main.xml", cache);
+        XmlConfig cached = new XmlConfig(classLoader(), "main.xml", cache);
+
+        assertFalse(parsed.isLoadedFromCache());
+        assertTrue(cached.isLoadedFromCache());
+        assertEquals(Arrays.asList("builder", "label"), cached.beanNames());
+        assertEquals("pizza", new SimpleIoC(cached).getBean("builder").toString());
+
+        write("nested/part.xml", "<beans><bean name=\"builder\" class=\"java.lang.StringBuilder\">"
+                + "<constructor-arg type=\"int\" value=\"16\"/></bean></beans>");
+        XmlConfig reparsed = new XmlConfig(classLoader(), "main.xml", cache);
+
+        assertFalse(reparsed.isLoadedFromCache());
+        assertEquals("", new SimpleIoC(reparsed).getBean("builder").toString());
+    }
+
+    @Test
+    public void cacheEntriesOthersCouldHaveWrittenAreNotTrusted() throws IOException {
+        Assume.assumeTrue(Files.getFileAttributeView(cache, PosixFileAttributeView.class) != null);
+        write("main.xml", "<beans><bean id=\"label\" class=\"java.lang.String\"><constructor-arg value=\"pizza\"/></bean></beans>");
+        new XmlConfig(classLoader(), "main.xml", cache);
+        Path entry;
+        try (Stream<Path> entries = Files.list(cache)) {
+            entry = entries.findFirst().get();
+        }
+        Files.setPosixFilePermissions(entry, PosixFilePermissions.fromString("rw-rw-rw-"));
+
+        assertFalse(new XmlConfig(classLoader(), "main.xml", cache).isLoadedFromCache());
+    }
+
+    @Test
+    public void createdCacheDirectoriesAreOnlyAccessibleToTheirOwner() throws IOException {
+        Assume.assumeTrue(Files.getFileAttributeView(cache, PosixFileAttributeView.class) != null);
+        write("main.xml", "<beans><bean id=\"label\" class=\"java.lang.String\"><constructor-arg value=\"pizza\"/></bean></beans>");
+        Path directory = cache.resolve("nested");
+        new XmlConfig(classLoader(), "main.xml", directory);
+
+        assertEquals(PosixFilePermissions.fromString("rwx------"), Files.getPosixFilePermissions(directory));
+        assertTrue(new XmlConfig(classLoader(), "main.xml", directory).isLoadedFromCache());
+    }
+
+    @Test
+    public void staticFactoryMethodReceivesIndexedArguments() throws IOException {
+        write("factory.xml", "<beans><bean id=\"number\" class=\"java.lang.Integer\" factory-method=\"valueOf\">"
+                + "<constructor-arg index=\"1\" value=\"16\"/><constructor-arg index=\"0\" value=\"ff\"/></bean></beans>");
+
+        assertEquals(255, new SimpleIoC(new XmlConfig(classLoader(), "factory.xml", null)).getBean("number"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unsupportedElementsAreRejected() throws IOException {
+        write("property.xml", "<beans><bean id=\"a\" class=\"example_services.ServiceA\">"
+                + "<property name=\"b\" ref=\"b\"/></bean></beans>");
+
+        new XmlConfig(classLoader(), "property.xml", null);
+    }
+
+    @Test
+    public void factoryMethodsAreCalledThroughTheProxyOfTheirFactoryBean() throws IOException {
+        write("factory.xml", "<beans><bean name=\"labelFactory\" class=\"ioc.XmlConfigTest$LabelFactory\"/>"
+                + "<bean name=\"builder\" factory-bean=\"labelFactory\" factory-method=\"createBuilder\">"
+                + "<constructor-arg value=\"pizza\"/></bean></beans>");
+        SimpleIoC simpleIoC = new SimpleIoC(new XmlConfig(classLoader(), "factory.xml", null));
+
+        assertEquals("pizza", simpleIoC.getBean("builder").toString());
+        assertEquals(1, simpleIoC.metrics().forBean("labelFactory").method("createBuilder(String)").getCount());
+    }
+
+    private void write(String resource, String content) throws IOException {
+        Path file = resources.resolve(resource);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ClassLoader classLoader() throws IOException {
+        return new URLClassLoader(new URL[]{resources.toUri().toURL()}, getClass().getClassLoader());
+    }
+}
@@ -0,0 +1,150 @@
+package pizza.repo;
+
+import org.junit.Test;
+import pizza.dao.OrderDao;
+import pizza.dao.OrderDaoImpl;
+import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.repository.User;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class ColumnarOrderRepoTest {
+    private final User jack = new User(2, "Jack", "Jackson");
+    private final User jane = new User(3, "Jane", "Doe");
+    private final Pizza hawaii = new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100);
+    private final Pizza cheese = new Pizza(2, "Cheese", PizzaType.PIZZA_TWO, 150);
+    private final Pizza bacon = new Pizza(4, "Bacon", PizzaType.PIZZA_THREE, 130);
+
+    @Test
+    public void ordersAreMaterializedFromColumns() {
+        ColumnarOrderRepo orderRepo = new ColumnarOrderRepo();
+        OrderDao orderDao = new OrderDaoImpl(orderRepo);
+        for (int index = 0; index < 100; index++) {
+            orderDao.save(new Order(Arrays.asList(hawaii, cheese), jack));
+        }
+        orderDao.saveAll(Arrays.asList(new Order(Collections.singletonList(bacon), jane),
+                new Order(Collections.emptyList(), null)));
+
+        List<Order> orders = orderRepo.getOrders();
+        assertEquals(102, orders.size());
+        assertEquals(102, orderRepo.getLastId());
+
+        Order order = orderRepo.getOrder(50);
+        assertEquals(50, order.getOrderId());
+        assertEquals(250, order.getTotalPrice(), 0);
+        assertEquals("Jackson", order.getUser().getLastName());
+        assertEquals(Arrays.asList("Hawaii", "Cheese"), Arrays.asList(order.getPizzas().get(0).getTitle(),
+                order.getPizzas().get(1).getTitle()));
+        assertEquals(PizzaType.PIZZA_THREE, orders.get(100).getPizzas().get(0).getPizzaType());
+        assertNull(orders.get(101).getUser());
+        assertTrue(orders.get(101).getPizzas().isEmpty());
+        assertNull(orderRepo.getOrder(103));
+    }
+
+    @Test
+    public void materializedOrdersDoNotShareState() {
+        ColumnarOrderRepo orderRepo = new ColumnarOrderRepo();
+        orderRepo.addOrder(new Order(1, Collections.singletonList(hawaii), jack));
+        orderRepo.addOrder(new Order(2, Collections.singletonList(hawaii), jack));
+
+        orderRepo.getOrder(1).getPizzas().get(0).setPrice(1);
+        orderRepo.getOrder(1).getUser().setFirstName("John");
+
+        assertEquals(100, orderRepo.getOrder(2).getPizzas().get(0).getPrice(), 0);
+        assertEquals("Jack", orderRepo.getOrder(2).getUser().getFirstName());
+    }
+
+    @Test
+    public void aggregatesAreComputedFromColumns() {
+        ColumnarOrderRepo orderRepo = new ColumnarOrderRepo();
+        orderRepo.addOrder(new Order(1, Arrays.asList(hawaii, cheese), jack));
+        orderRepo.addOrder(new Order(2, Arrays.asList(hawaii, hawaii), jack));
+        orderRepo.addOrder(new Order(3, Collections.singletonList(bacon), jane));
+        // the same user id under another name still counts as that user
+        orderRepo.addOrder(new Order(4, Collections.singletonList(bacon), new User(3, "Jane", "Smith")));
+
+        Map<PizzaType, Double> revenue = orderRepo.getRevenueByPizzaType();
+        assertEquals(300, revenue.get(PizzaType.PIZZA_ONE), 0);
+        assertEquals(150, revenue.get(PizzaType.PIZZA_TWO), 0);
+        assertEquals(260, revenue.get(PizzaType.PIZZA_THREE), 0);
+
+        Map<Integer, Integer> ordersByUser = orderRepo.getOrderCountsByUser();
+        assertEquals(2, ordersByUser.size());
+        assertEquals(2, (int) ordersByUser.get(2));
+        assertEquals(2, (int) ordersByUser.get(3));
+    }
+
+    @Test
+    public void batchesWithADuplicateIdAreRejectedAsAWhole() {
+        ColumnarOrderRepo orderRepo = new ColumnarOrderRepo();
+        orderRepo.addOrder(new Order(1, Collections.singletonList(hawaii), jack));
+
+        try {
+            orderRepo.addOrders(Arrays.asList(new Order(2, Collections.singletonList(cheese), jack),
+                    new Order(1, Collections.singletonList(cheese), jack)));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        assertEquals(1, orderRepo.getOrders().size());
+        assertNull(orderRepo.getOrder(2));
+    }
+
+    @Test
+    public void filtersAndPagesAreEvaluatedOnColumns() {
+        Instant monday = Instant.parse("2024-01-01T12:00:00Z");
+        Instant tuesday = Instant.parse("2024-01-02T12:00:00.000000001Z");
+        ColumnarOrderRepo orderRepo = new ColumnarOrderRepo();
+        for (int orderId = 1; orderId <= 6; orderId++) {
+            Order order = new Order(orderId, Collections.singletonList(hawaii), (orderId % 2 == 0) ? jack : jane);
+            order.setCreatedAt((orderId <= 3) ? monday : tuesday);
+            orderRepo.addOrder(order);
+        }
+        orderRepo.addOrder(new Order(7, Collections.singletonList(hawaii), jack));
+
+        assertEquals(Arrays.asList(2, 4, 6, 7), orderRepo.streamOrders(OrderFilter.all().forUser(2))
+                .map(Order::getOrderId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(4, 6), orderRepo.streamOrders(OrderFilter.all().forUser(2).placedFrom(tuesday))
+                .map(Order::getOrderId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(1, 2, 3), orderRepo.streamOrders(OrderFilter.all().placedBefore(tuesday))
+                .map(Order::getOrderId).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(4, 5), orderRepo.getOrders(3, 2).stream()
+                .map(Order::getOrderId).collect(Collectors.toList()));
+        assertEquals(Collections.singletonList(7), orderRepo.getOrders(OrderFilter.all().forUser(2), 6, 10).stream()
+                .map(Order::getOrderId).collect(Collectors.toList()));
+        assertEquals(tuesday, orderRepo.getOrder(6).getCreatedAt());
+        assertNull(orderRepo.getOrder(7).getCreatedAt());
+    }
+
+    @Test
+    public void ordersInASnapshotAreFoundByIdWhileOrdersAreAdded() throws InterruptedException {
+        ColumnarOrderRepo orderRepo = new ColumnarOrderRepo();
+        Thread writer = new Thread(() -> {
+            for (int orderId = 1; orderId <= 20_000; orderId++) {
+                orderRepo.addOrder(new Order(orderId, Collections.singletonList(hawaii), jack));
+            }
+        });
+        writer.start();
+        while (writer.isAlive()) {
+            List<Order> orders = orderRepo.getOrders();
+            if (!orders.isEmpty()) {
+                int orderId = orders.get(orders.size() - 1).getOrderId();
+                assertEquals(orderId, orderRepo.getOrder(orderId).getOrderId());
+            }
+        }
+        writer.join();
+
+        assertEquals(20_000, orderRepo.getOrders().size());
+        assertNotNull(orderRepo.getOrder(20_000));
+    }
+}
@@ -0,0 +1,195 @@
+package pizza.repo;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pizza.dao.OrderDao;
+import pizza.dao.OrderDaoImpl;
+import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.repository.User;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class MappedOrderRepoTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final User user = new User(2, "Jack", "Jackson");
+    private final Pizza hawaii = new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100);
+    private final Pizza cheese = new Pizza(2, "Cheese", PizzaType.PIZZA_TWO, 150);
+
+    @Test
+    public void ordersAreRecoveredAfterReopening() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory)) {
+            OrderDao orderDao = new OrderDaoImpl(orderRepo);
+            orderDao.save(new Order(Arrays.asList(hawaii, cheese), user));
+            orderDao.saveAll(Arrays.asList(new Order(Arrays.asList(cheese), user),
+                    new Order(Arrays.asList(hawaii), new User(3, "Jane", null))));
+        }
+
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory)) {
+            List<Order> orders = orderRepo.getOrders();
+            assertEquals(3, orders.size());
+            assertEquals(3, orderRepo.getLastId());
+            assertEquals(4, orderRepo.nextId());
+
+            Order order = orderRepo.getOrder(1);
+            assertEquals(250, order.getTotalPrice(), 0);
+            assertNotNull(order.getCreatedAt());
+            assertEquals(order.getCreatedAt(), orderRepo.streamOrders(OrderFilter.all().forUser(2))
+                    .findFirst().get().getCreatedAt());
+            assertEquals("Jackson", order.getUser().getLastName());
+            assertEquals("Cheese", order.getPizzas().get(1).getTitle());
+            assertEquals(PizzaType.PIZZA_TWO, order.getPizzas().get(1).getPizzaType());
+            assertNull(orderRepo.getOrder(3).getUser().getLastName());
+        }
+    }
+
+    @Test
+    public void fullSegmentsRollOverToNewOnes() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 256)) {
+            for (int orderId = 1; orderId <= 20; orderId++) {
+                orderRepo.addOrder(new Order(orderId, Arrays.asList(hawaii, cheese), user));
+            }
+        }
+
+        assertTrue(segmentsIn(directory).size() > 1);
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 256)) {
+            assertEquals(20, orderRepo.getOrders().size());
+            assertEquals(20, orderRepo.getOrders().get(19).getOrderId());
+        }
+    }
+
+    @Test
+    public void tornTailIsDiscardedOnRecovery() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 4096)) {
+            orderRepo.addOrder(new Order(1, Arrays.asList(hawaii), user));
+            orderRepo.addOrder(new Order(2, Arrays.asList(cheese), user));
+        }
+        // damage the payload of the second record, as if the process died while writing it
+        Path segment = segmentsIn(directory).get(0);
+        byte[] content = Files.readAllBytes(segment);
+        int end = content.length - 1;
+        while (content[end] == 0) {
+            end--;
+        }
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            file.seek(end);
+            file.write(content[end] + 1);
+        }
+
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 4096)) {
+            assertEquals(1, orderRepo.getOrders().size());
+            orderRepo.addOrder(new Order(2, Arrays.asList(hawaii, cheese), user));
+        }
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 4096)) {
+            assertEquals(2, orderRepo.getOrders().size());
+            assertEquals(250, orderRepo.getOrder(2).getTotalPrice(), 0);
+        }
+    }
+
+    @Test
+    public void rejectedOrdersAreNotLogged() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory)) {
+            orderRepo.addOrder(new Order(1, Arrays.asList(hawaii), user));
+            try {
+                orderRepo.addOrders(Arrays.asList(new Order(2, Arrays.asList(cheese), user),
+                        new Order(1, Arrays.asList(cheese), user)));
+                fail();
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory)) {
+            assertEquals(1, orderRepo.getOrders().size());
+            assertNull(orderRepo.getOrder(2));
+        }
+    }
+
+    @Test
+    public void batchesThatFailToRollAreNotRecovered() throws IOException {
+        Path directory = folder.getRoot().toPath();
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 256)) {
+            orderRepo.addOrder(new Order(1, Arrays.asList(hawaii), user));
+            // the next segment can't be created while a directory is in its place
+            Path blocker = Files.createDirectory(directory.resolve(segmentsIn(directory).get(0).getFileName().toString()
+                    .replace("0000000000", "0000000001")));
+            List<Order> batch = new ArrayList<>();
+            for (int orderId = 2; orderId <= 10; orderId++) {
+                batch.add(new Order(orderId, Arrays.asList(hawaii, cheese), user));
+            }
+            try {
+                orderRepo.addOrders(batch);
+                fail();
+            } catch (UncheckedIOException expected) {
+            }
+            Files.deleteIfExists(blocker);
+
+            assertNull(orderRepo.getOrder(2));
+            orderRepo.addOrder(new Order(11, Arrays.asList(cheese), user));
+        }
+
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 256)) {
+            assertEquals(Arrays.asList(1, 11), orderRepo.getOrders().stream()
+                    .map(Order::getOrderId).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void newRepositoriesStartWithoutTheSampleOrder() throws IOException {
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(folder.getRoot().toPath())) {
+            assertTrue(orderRepo.getOrders().isEmpty());
+            assertEquals(0, orderRepo.getLastId());
+        }
+    }
+
+    @Test
+    public void concurrentWritersAreAllDurable() throws Exception {
+        Path directory = folder.getRoot().toPath();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 4096)) {
+            OrderDao orderDao = new OrderDaoImpl(orderRepo);
+            List<Future<Order>> orders = new ArrayList<>();
+            for (int index = 0; index < 200; index++) {
+                orders.add(executor.submit(() -> orderDao.save(new Order(Arrays.asList(hawaii), user))));
+            }
+            for (Future<Order> order : orders) {
+                order.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        try (MappedOrderRepo orderRepo = new MappedOrderRepo(directory, 4096)) {
+            assertEquals(200, orderRepo.getOrders().size());
+            assertEquals(200, orderRepo.getLastId());
+        }
+    }
+
+    private static List<Path> segmentsIn(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+}
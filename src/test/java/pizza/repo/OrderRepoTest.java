@@ -0,0 +1,151 @@
+package pizza.repo;
+
+import org.junit.Test;
+import pizza.dao.OrderDaoImpl;
+import pizza.repository.Order;
+import pizza.repository.OrderFilter;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+import pizza.repository.User;
+import pizza.service.OrderService;
+import pizza.service.OrderServiceImpl;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class OrderRepoTest {
+    private final User jack = new User(2, "Jack", "Jackson");
+    private final User jane = new User(3, "Jane", "Doe");
+    private final Pizza hawaii = new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100);
+
+    @Test
+    public void snapshotsAreNotAffectedByLaterOrders() {
+        OrderRepo orderRepo = new OrderRepo();
+        List<Order> orders = orderRepo.getOrders();
+        Iterator<Order> iterator = orderRepo.streamOrders(OrderFilter.all()).iterator();
+
+        for (int orderId = 2; orderId <= 3000; orderId++) {
+            orderRepo.addOrder(order(orderId, jack, null));
+        }
+
+        assertEquals(1, orders.size());
+        assertEquals(1, iterator.next().getOrderId());
+        assertFalse(iterator.hasNext());
+        assertEquals(3000, orderRepo.getOrders().size());
+        assertEquals(3000, orderRepo.getOrders().get(2999).getOrderId());
+        assertEquals(2048, orderRepo.getOrder(2048).getOrderId());
+    }
+
+    @Test
+    public void ordersFoundByIdAreInEverySnapshotTakenAfterwards() throws InterruptedException {
+        OrderRepo orderRepo = new OrderRepo();
+        Thread writer = new Thread(() -> {
+            for (int orderId = 2; orderId <= 20_000; orderId += 2) {
+                orderRepo.addOrders(Arrays.asList(order(orderId, jack, null), order(orderId + 1, jack, null)));
+            }
+        });
+        writer.start();
+        int orderId = 2;
+        while (orderId <= 20_001) {
+            boolean writing = writer.isAlive();
+            if (orderRepo.getOrder(orderId) != null) {
+                assertTrue(orderRepo.getOrders().size() >= orderId);
+                orderId++;
+            } else if (!writing) {
+                fail("Order " + orderId + " was never indexed");
+            }
+        }
+        writer.join();
+    }
+
+    @Test
+    public void concurrentlyPlacedOrdersGetUniqueIdsAndAreAllKept() throws Exception {
+        OrderRepo orderRepo = new OrderRepo();
+        OrderService orderService = new OrderServiceImpl(new OrderDaoImpl(orderRepo));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Order>> placedOrders = new ArrayList<>();
+            for (int index = 0; index < 5000; index++) {
+                placedOrders.add(executor.submit(() -> orderService.placeOrder(jack, hawaii)));
+            }
+            Set<Integer> orderIds = new HashSet<>();
+            for (Future<Order> placedOrder : placedOrders) {
+                orderIds.add(placedOrder.get().getOrderId());
+            }
+
+            assertEquals(5000, orderIds.size());
+            assertEquals(5001, orderRepo.getOrders().size());
+            assertEquals(5001, new HashSet<>(idsOf(orderRepo.getOrders())).size());
+            for (int orderId : orderIds) {
+                assertEquals(orderId, orderRepo.getOrder(orderId).getOrderId());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void pagesFollowTheOrderOfAdditionWithoutGaps() {
+        OrderRepo orderRepo = new OrderRepo();
+        orderRepo.addOrder(order(3, jack, null));
+        orderRepo.addOrder(order(2, jack, null));
+
+        List<Order> firstPage = orderRepo.getOrders(0, 2);
+        assertEquals(Arrays.asList(1, 3), idsOf(firstPage));
+
+        // an order with a smaller id added after the first page still shows up on a later one
+        orderRepo.addOrder(order(4, jack, null));
+        List<Integer> orderIds = new ArrayList<>();
+        int afterId = firstPage.get(1).getOrderId();
+        List<Order> page;
+        while (!(page = orderRepo.getOrders(afterId, 2)).isEmpty()) {
+            orderIds.addAll(idsOf(page));
+            afterId = page.get(page.size() - 1).getOrderId();
+        }
+        assertEquals(Arrays.asList(2, 4), orderIds);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void pagesAfterAnUnknownOrderAreRejected() {
+        new OrderRepo().getOrders(42, 10);
+    }
+
+    @Test
+    public void ordersAreFilteredByUserAndDate() {
+        Instant monday = Instant.parse("2024-01-01T12:00:00Z");
+        Instant tuesday = Instant.parse("2024-01-02T12:00:00Z");
+        OrderRepo orderRepo = new OrderRepo();
+        orderRepo.addOrders(Arrays.asList(order(2, jack, monday), order(3, jane, monday),
+                order(4, jack, tuesday), order(5, jane, tuesday)));
+
+        assertEquals(Arrays.asList(2, 4), idsOf(orderRepo.streamOrders(OrderFilter.all().forUser(2))
+                .collect(Collectors.toList())));
+        assertEquals(Arrays.asList(4, 5), idsOf(orderRepo.streamOrders(OrderFilter.all().placedFrom(tuesday))
+                .collect(Collectors.toList())));
+        assertEquals(Collections.singletonList(3), idsOf(orderRepo.streamOrders(OrderFilter.all().forUser(3)
+                .placedBefore(tuesday)).collect(Collectors.toList())));
+        assertEquals(Collections.singletonList(5), idsOf(orderRepo.getOrders(OrderFilter.all().forUser(3), 3, 10)));
+    }
+
+    private Order order(int orderId, User user, Instant createdAt) {
+        Order order = new Order(orderId, Collections.singletonList(hawaii), user);
+        order.setCreatedAt(createdAt);
+        return order;
+    }
+
+    private static List<Integer> idsOf(List<Order> orders) {
+        return orders.stream().map(Order::getOrderId).collect(Collectors.toList());
+    }
+}
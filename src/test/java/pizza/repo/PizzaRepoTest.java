@@ -0,0 +1,58 @@
+package pizza.repo;
+
+import org.junit.Test;
+import pizza.repository.Pizza;
+import pizza.repository.PizzaType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class PizzaRepoTest {
+    private final Pizza pepperoni = new Pizza(6, "Pepperoni", PizzaType.PIZZA_TWO, 140);
+
+    @Test
+    public void addedPizzasAreFoundByTitleAndType() {
+        PizzaRepo pizzaRepo = new PizzaRepo();
+        pizzaRepo.addPizza(pepperoni);
+
+        assertSame(pepperoni, pizzaRepo.getPizzaByTitle("Pepperoni"));
+        assertEquals(Arrays.asList("Cheese", "Pepperoni"), titlesOf(pizzaRepo.getPizzasByType(PizzaType.PIZZA_TWO)));
+        assertEquals(6, pizzaRepo.getLastId());
+        // the first pizza of a title keeps it
+        pizzaRepo.addPizza(new Pizza(7, "Hawaii", PizzaType.PIZZA_THREE, 90));
+        assertEquals(1, pizzaRepo.getPizzaByTitle("Hawaii").getPizzaId());
+    }
+
+    @Test
+    public void returnedListsAreUnmodifiable() {
+        PizzaRepo pizzaRepo = new PizzaRepo();
+
+        for (List<Pizza> pizzas : Arrays.asList(pizzaRepo.getPizzas(), pizzaRepo.getPizzasByType(PizzaType.PIZZA_ONE))) {
+            try {
+                pizzas.add(pepperoni);
+                fail();
+            } catch (UnsupportedOperationException expected) {
+            }
+        }
+    }
+
+    @Test
+    public void snapshotsReadBeforeAnAdditionDoNotChange() {
+        PizzaRepo pizzaRepo = new PizzaRepo();
+        List<Pizza> pizzas = pizzaRepo.getPizzas();
+        List<Pizza> pizzasOfType = pizzaRepo.getPizzasByType(PizzaType.PIZZA_TWO);
+
+        pizzaRepo.addPizza(pepperoni);
+
+        assertEquals(5, pizzas.size());
+        assertEquals(Arrays.asList("Cheese"), titlesOf(pizzasOfType));
+        assertEquals(6, pizzaRepo.getPizzas().size());
+    }
+
+    private static List<String> titlesOf(List<Pizza> pizzas) {
+        return pizzas.stream().map(Pizza::getTitle).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,203 @@
+package pizza.service;
+
+import org.junit.Test;
+import pizza.dao.OrderDaoImpl;
+import pizza.repo.OrderRepo;
+import pizza.repository.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.*;
+
+public class BatchingOrderServiceTest {
+    private final User user = new User(2, "Jack", "Jackson");
+    private final Pizza hawaii = new Pizza(1, "Hawaii", PizzaType.PIZZA_ONE, 100);
+    private final Pizza cheese = new Pizza(2, "Cheese", PizzaType.PIZZA_TWO, 150);
+
+    private static class RecordingOrderService implements OrderService {
+        private final OrderService orderService;
+        private final List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        private volatile RuntimeException failure;
+        private volatile Error error;
+
+        private RecordingOrderService(OrderService orderService) {
+            this.orderService = orderService;
+        }
+
+        @Override
+        public List<Order> getAllOrders() {
+            return orderService.getAllOrders();
+        }
+
+        @Override
+        public Stream<Order> streamOrders(OrderFilter filter) {
+            return orderService.streamOrders(filter);
+        }
+
+        @Override
+        public List<Order> getOrders(int afterId, int limit) {
+            return orderService.getOrders(afterId, limit);
+        }
+
+        @Override
+        public List<Order> getOrders(OrderFilter filter, int afterId, int limit) {
+            return orderService.getOrders(filter, afterId, limit);
+        }
+
+        @Override
+        public Order placeOrder(User user, Pizza... pizzas) {
+            return orderService.placeOrder(user, pizzas);
+        }
+
+        @Override
+        public List<Order> placeOrders(Collection<OrderRequest> orderRequests) {
+            batchSizes.add(orderRequests.size());
+            if (failure != null) {
+                throw failure;
+            }
+            if (error != null) {
+                throw error;
+            }
+            return orderService.placeOrders(orderRequests);
+        }
+    }
+
+    @Test
+    public void placeOrdersSavesTheBatchWithConsecutiveIds() {
+        OrderRepo orderRepo = new OrderRepo();
+        OrderService orderService = new OrderServiceImpl(new OrderDaoImpl(orderRepo));
+
+        List<Order> orders = orderService.placeOrders(Arrays.asList(
+                new OrderRequest(user, hawaii), new OrderRequest(user, hawaii, cheese)));
+
+        assertEquals(2, orders.get(0).getOrderId());
+        assertEquals(3, orders.get(1).getOrderId());
+        assertEquals(250, orders.get(1).getTotalPrice(), 0);
+        assertEquals(3, orderRepo.getOrders().size());
+        assertEquals(3, orderRepo.getLastId());
+    }
+
+    @Test
+    public void batchesWithADuplicateIdAreRejectedAsAWhole() {
+        OrderRepo orderRepo = new OrderRepo();
+
+        try {
+            orderRepo.addOrders(Arrays.asList(new Order(5, Collections.singletonList(hawaii), user),
+                    new Order(1, Collections.singletonList(cheese), user)));
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        assertNull(orderRepo.getOrder(5));
+        assertEquals(1, orderRepo.getOrders().size());
+    }
+
+    @Test
+    public void concurrentOrdersAreCoalescedIntoBatches() throws Exception {
+        RecordingOrderService orderService = new RecordingOrderService(new OrderServiceImpl(new OrderDaoImpl(new OrderRepo())));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            BatchingOrderService batchingOrderService = new BatchingOrderService(orderService, executor, 4);
+
+            List<CompletableFuture<Order>> orders = new ArrayList<>();
+            for (int index = 0; index < 10; index++) {
+                orders.add(batchingOrderService.placeOrderAsync(user, hawaii, cheese));
+            }
+            release.countDown();
+
+            Set<Integer> orderIds = new HashSet<>();
+            for (CompletableFuture<Order> order : orders) {
+                orderIds.add(order.get(5, TimeUnit.SECONDS).getOrderId());
+            }
+            assertEquals(10, orderIds.size());
+            assertEquals(Arrays.asList(4, 4, 2), orderService.batchSizes);
+            assertEquals(11, batchingOrderService.getAllOrders().size());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void failedBatchesFailEveryOrderInThem() {
+        RecordingOrderService orderService = new RecordingOrderService(new OrderServiceImpl(new OrderDaoImpl(new OrderRepo())));
+        orderService.failure = new IllegalStateException("order store unavailable");
+        BatchingOrderService batchingOrderService = new BatchingOrderService(orderService, Runnable::run, 4);
+
+        try {
+            batchingOrderService.placeOrder(user, hawaii);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals("order store unavailable", e.getMessage());
+        }
+    }
+
+    @Test
+    public void batchesFailingWithAnErrorDoNotLeaveOrdersWaiting() throws Exception {
+        RecordingOrderService orderService = new RecordingOrderService(new OrderServiceImpl(new OrderDaoImpl(new OrderRepo())));
+        orderService.error = new LinkageError("order store unavailable");
+        List<Thread> workers = Collections.synchronizedList(new ArrayList<>());
+        List<Throwable> uncaught = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+            Thread worker = new Thread(task);
+            worker.setUncaughtExceptionHandler((thread, e) -> uncaught.add(e));
+            workers.add(worker);
+            return worker;
+        });
+        try {
+            BatchingOrderService batchingOrderService = new BatchingOrderService(orderService, executor, 4);
+
+            try {
+                batchingOrderService.placeOrderAsync(user, hawaii).get(5, TimeUnit.SECONDS);
+                fail();
+            } catch (ExecutionException e) {
+                assertSame(orderService.error, e.getCause());
+            }
+
+            orderService.error = null;
+            assertEquals(2, batchingOrderService.placeOrderAsync(user, hawaii).get(5, TimeUnit.SECONDS).getOrderId());
+            // the error went to the caller only, the same worker saved the next batch
+            assertEquals(1, workers.size());
+            assertTrue(uncaught.isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void ordersArrivingWhileABatchLingersJoinIt() throws Exception {
+        RecordingOrderService orderService = new RecordingOrderService(new OrderServiceImpl(new OrderDaoImpl(new OrderRepo())));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            // a full batch is saved at once, the long window only matters for the last one
+            BatchingOrderService batchingOrderService = new BatchingOrderService(orderService, executor, 4,
+                    TimeUnit.SECONDS.toNanos(2));
+
+            List<CompletableFuture<Order>> orders = new ArrayList<>();
+            for (int index = 0; index < 4; index++) {
+                orders.add(batchingOrderService.placeOrderAsync(user, hawaii));
+                Thread.sleep(10);
+            }
+            for (CompletableFuture<Order> order : orders) {
+                order.get(1, TimeUnit.SECONDS);
+            }
+            assertEquals(Collections.singletonList(4), orderService.batchSizes);
+
+            long start = System.nanoTime();
+            batchingOrderService.placeOrderAsync(user, cheese).get(5, TimeUnit.SECONDS);
+            assertTrue(System.nanoTime() - start >= TimeUnit.SECONDS.toNanos(2));
+            assertEquals(Arrays.asList(4, 1), orderService.batchSizes);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package proxy;
+
+import ioc.Benchmark;
+import ioc.CacheEvict;
+import ioc.Cached;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class BenchmarkProxyHandlerTest {
+
+    public interface Calculator {
+        int add(int a, int b);
+        String describe();
+        void fail();
+    }
+
+    static class CalculatorBean implements Calculator {
+        @Benchmark
+        public int add(int a, int b) {
+            return a + b;
+        }
+
+        public String describe() {
+            return "calculator";
+        }
+
+        public void fail() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return "CalculatorBean";
+        }
+    }
+
+    public interface Catalog {
+        String find(String name);
+        void add(String name);
+    }
+
+    static class CatalogBean implements Catalog {
+        final AtomicInteger lookups = new AtomicInteger();
+
+        @Cached("catalog")
+        public String find(String name) {
+            lookups.incrementAndGet();
+            return name.toUpperCase();
+        }
+
+        @CacheEvict("catalog")
+        public void add(String name) {
+        }
+    }
+
+    static class RefreshingCatalogBean extends CatalogBean {
+        @Cached("catalog")
+        @CacheEvict("menu")
+        @Override
+        public String find(String name) {
+            return name;
+        }
+    }
+
+    private Calculator createProxy(BenchmarkProxyHandler handler) {
+        return (Calculator) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Calculator.class}, handler);
+    }
+
+    private Calculator createProxy(Object bean) {
+        return createProxy(new BenchmarkProxyHandler(bean, new Class[]{Calculator.class}));
+    }
+
+    @Test
+    public void proxyDispatchesToBean() {
+        Calculator calculator = createProxy(new CalculatorBean());
+
+        assertEquals(5, calculator.add(2, 3));
+        assertEquals("calculator", calculator.describe());
+        assertEquals("CalculatorBean", calculator.toString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void proxyRethrowsBeanExceptionsUnwrapped() {
+        createProxy(new CalculatorBean()).fail();
+    }
+
+    @Test
+    public void onlyBenchmarkedMethodsAreTimed() {
+        BenchmarkProxyHandler handler = new BenchmarkProxyHandler(new CalculatorBean(), new Class[]{Calculator.class});
+        Calculator calculator = createProxy(handler);
+
+        calculator.add(1, 2);
+        calculator.add(3, 4);
+        calculator.describe();
+
+        assertEquals(Collections.singleton("add(int, int)"), handler.getStatistics().keySet());
+        MethodStatistics statistics = handler.getStatistics().get("add(int, int)");
+        assertEquals(2, statistics.getCount());
+        assertTrue(statistics.getMinTimeNanos() <= statistics.getMaxTimeNanos());
+    }
+
+    @Test
+    public void cachedResultsAreReusedUntilEvicted() {
+        CatalogBean bean = new CatalogBean();
+        ResultCaches caches = new ResultCaches();
+        Catalog catalog = (Catalog) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Catalog.class},
+                new BenchmarkProxyHandler(bean, new Class[]{Catalog.class}, new ConcurrentSkipListMap<>(), caches));
+
+        assertEquals("HAWAII", catalog.find("hawaii"));
+        assertEquals("HAWAII", catalog.find("hawaii"));
+        assertEquals("CHEESE", catalog.find("cheese"));
+        assertEquals(2, bean.lookups.get());
+
+        catalog.add("bacon");
+        catalog.find("hawaii");
+
+        assertEquals(3, bean.lookups.get());
+        ResultCache cache = caches.get("catalog");
+        assertEquals(1, cache.getHitCount());
+        assertEquals(3, cache.getMissCount());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void methodsThatAreBothCachedAndEvictingAreRejected() {
+        new BenchmarkProxyHandler(new RefreshingCatalogBean(), new Class[]{Catalog.class});
+    }
+}
@@ -0,0 +1,106 @@
+package proxy;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsCoverValuesWithBoundedRelativeError() {
+        for (long value = 1; value > 0 && value < Long.MAX_VALUE / 3; value = value * 3 + 1) {
+            long highest = LatencyHistogram.highestValueInBucket(LatencyHistogram.bucketIndex(value));
+            assertTrue(highest >= value);
+            assertTrue((highest - value) <= value / 16);
+        }
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.highestValueInBucket(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    public void percentilesFollowRecordedDistribution() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; value++) {
+            histogram.record(value * 1000);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.getCount());
+        assertEquals(1000, snapshot.getMinNanos());
+        assertEquals(1_000_000, snapshot.getMaxNanos());
+        assertEquals(500_000, snapshot.getP50Nanos(), 500_000 * 0.04);
+        assertEquals(900_000, snapshot.getP90Nanos(), 900_000 * 0.04);
+        assertEquals(990_000, snapshot.getP99Nanos(), 990_000 * 0.04);
+        assertEquals(999_000, snapshot.getP999Nanos(), 999_000 * 0.04);
+    }
+
+    @Test
+    public void snapshotAndResetStartsNewInterval() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(10);
+        histogram.record(20);
+
+        assertEquals(2, histogram.snapshotAndReset().getCount());
+        assertEquals(0, histogram.snapshot().getCount());
+
+        histogram.record(30);
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount());
+        assertEquals(30, snapshot.getMinNanos());
+        assertEquals(30, snapshot.getMaxNanos());
+    }
+
+    @Test
+    public void valuesRecordedDuringResetsAreCountedExactlyOnce() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread recorder = new Thread(() -> {
+            for (int index = 0; index < 200_000; index++) {
+                histogram.record(index);
+            }
+        });
+        recorder.start();
+        long counted = 0;
+        while (recorder.isAlive()) {
+            counted += histogram.snapshotAndReset().getCount();
+        }
+        recorder.join();
+
+        assertEquals(200_000, counted + histogram.getCount());
+    }
+
+    @Test
+    public void tailPercentilesReachTheRecordedMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int index = 0; index < 999; index++) {
+            histogram.record(101);
+        }
+        histogram.record(1_000_003);
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(1_000_003, snapshot.getMaxNanos());
+        assertEquals(1_000_003, snapshot.getP999Nanos());
+        assertEquals(101, snapshot.getP99Nanos());
+    }
+
+    @Test
+    public void totalsRecordedDuringResetsGoToTheSameSnapshotAsTheirCounts() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Thread recorder = new Thread(() -> {
+            for (int index = 0; index < 200_000; index++) {
+                histogram.record(index % 2 == 0 ? 10 : 30);
+            }
+        });
+        recorder.start();
+        long total = 0;
+        while (recorder.isAlive()) {
+            LatencySnapshot snapshot = histogram.snapshotAndReset();
+            // pairs of values may be split between snapshots, but every value's total stays with its count
+            assertTrue(snapshot.getTotalNanos() >= snapshot.getCount() * 10);
+            assertTrue(snapshot.getTotalNanos() <= snapshot.getCount() * 30);
+            assertTrue(snapshot.getCount() == 0 || snapshot.getMaxNanos() <= 30);
+            total += snapshot.getTotalNanos();
+        }
+        recorder.join();
+
+        assertEquals(200_000 * 20L, total + histogram.getTotalNanos());
+    }
+}
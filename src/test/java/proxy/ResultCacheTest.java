@@ -0,0 +1,85 @@
+package proxy;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ResultCacheTest {
+
+    @Test
+    public void cachedValuesAreCountedAsHitsAndMisses() {
+        ResultCache cache = new ResultCache("test", 10, TimeUnit.MINUTES.toNanos(1));
+
+        assertSame(ResultCache.MISS, cache.get("key"));
+        cache.put("key", "value");
+        cache.put("nothing", null);
+
+        assertEquals("value", cache.get("key"));
+        assertNull(cache.get("nothing"));
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedBeyondMaxSize() {
+        ResultCache cache = new ResultCache("test", 1, TimeUnit.MINUTES.toNanos(1));
+
+        cache.put("first", 1);
+        cache.put("second", 2);
+
+        assertEquals(1, cache.size());
+        assertSame(ResultCache.MISS, cache.get("first"));
+        assertEquals(2, cache.get("second"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void segmentsNeverHoldMoreThanMaxSizeTogether() {
+        ResultCache cache = new ResultCache("test", 20, TimeUnit.MINUTES.toNanos(1));
+
+        for (int key = 0; key < 1000; key++) {
+            cache.put(key, key);
+        }
+
+        assertEquals(20, cache.size());
+    }
+
+    @Test
+    public void expiredEntriesAreMisses() throws InterruptedException {
+        ResultCache cache = new ResultCache("test", 10, TimeUnit.MILLISECONDS.toNanos(1));
+
+        cache.put("key", "value");
+        Thread.sleep(5);
+
+        assertSame(ResultCache.MISS, cache.get("key"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void resultsComputedBeforeAClearAreNotCached() {
+        ResultCache cache = new ResultCache("test", 10, TimeUnit.MINUTES.toNanos(1));
+        long generation = cache.generation();
+
+        cache.clear();
+
+        assertFalse(cache.put("key", "stale", generation));
+        assertSame(ResultCache.MISS, cache.get("key"));
+        assertTrue(cache.put("key", "fresh", cache.generation()));
+        assertEquals("fresh", cache.get("key"));
+    }
+
+    @Test
+    public void clearRemovesAllEntries() {
+        ResultCache cache = new ResultCache("test", 100, TimeUnit.MINUTES.toNanos(1));
+        for (int index = 0; index < 50; index++) {
+            cache.put(index, index);
+        }
+
+        cache.clear();
+
+        assertEquals(0, cache.size());
+        assertSame(ResultCache.MISS, cache.get(1));
+    }
+}
@@ -0,0 +1,167 @@
+package proxy;
+
+import ioc.Benchmark;
+import ioc.CacheEvict;
+import ioc.Cached;
+import org.junit.Test;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.junit.Assert.*;
+
+public class SubclassProxyFactoryTest {
+
+    public static class Calculator {
+        private final int offset;
+
+        public Calculator(int offset) {
+            this.offset = offset;
+        }
+
+        @Benchmark
+        public int add(int a, int b) {
+            return a + b + offset;
+        }
+
+        public long multiply(long a, double b) {
+            return (long) (a * b);
+        }
+
+        public String describe(String prefix, int[] values) {
+            return prefix + values.length;
+        }
+
+        @Benchmark
+        public void fail() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public String toString() {
+            return "Calculator";
+        }
+    }
+
+    public static class Catalog {
+        int lookups;
+
+        @Cached("catalog")
+        public long priceOf(String name, int size) {
+            lookups++;
+            return name.length() * (long) size;
+        }
+
+        @CacheEvict("catalog")
+        public void add(String name) {
+        }
+    }
+
+    public static class Menu {
+        int version;
+        Runnable duringLookup;
+
+        @Cached("menu")
+        public int version() {
+            int version = this.version;
+            Runnable duringLookup = this.duringLookup;
+            this.duringLookup = null;
+            if (duringLookup != null) {
+                duringLookup.run();
+            }
+            return version;
+        }
+
+        @CacheEvict("menu")
+        public void update() {
+            version++;
+        }
+    }
+
+    public static final class FinalCalculator {
+    }
+
+    static class HiddenCalculator {
+    }
+
+    @Test
+    public void proxyIsASubclassThatDelegatesToBean() {
+        Calculator calculator = SubclassProxyFactory.createProxy(new Calculator(10), new ConcurrentHashMap<>());
+
+        assertNotSame(Calculator.class, calculator.getClass());
+        assertEquals(15, calculator.add(2, 3));
+        assertEquals(7L, calculator.multiply(2, 3.5));
+        assertEquals("values3", calculator.describe("values", new int[3]));
+        assertEquals("Calculator", calculator.toString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void proxyRethrowsBeanExceptionsUnwrapped() {
+        SubclassProxyFactory.createProxy(new Calculator(0), new ConcurrentHashMap<>()).fail();
+    }
+
+    @Test
+    public void onlyBenchmarkedMethodsAreTimed() {
+        ConcurrentMap<String, MethodStatistics> statistics = new ConcurrentHashMap<>();
+        Calculator calculator = SubclassProxyFactory.createProxy(new Calculator(0), statistics);
+
+        calculator.add(1, 2);
+        calculator.add(3, 4);
+        calculator.multiply(1, 1);
+        try {
+            calculator.fail();
+        } catch (UnsupportedOperationException expected) {
+        }
+
+        assertEquals(2, statistics.size());
+        assertEquals(2, statistics.get("add(int, int)").getCount());
+        assertEquals(1, statistics.get("fail()").getCount());
+    }
+
+    @Test
+    public void proxyClassIsGeneratedOncePerBeanClass() {
+        Calculator first = SubclassProxyFactory.createProxy(new Calculator(1), new ConcurrentHashMap<>());
+        Calculator second = SubclassProxyFactory.createProxy(new Calculator(2), new ConcurrentHashMap<>());
+
+        assertSame(first.getClass(), second.getClass());
+        assertEquals(3, first.add(1, 1));
+        assertEquals(4, second.add(1, 1));
+    }
+
+    @Test
+    public void finalAndNonPublicClassesCannotBeProxied() {
+        assertTrue(SubclassProxyFactory.canProxy(Calculator.class));
+        assertFalse(SubclassProxyFactory.canProxy(FinalCalculator.class));
+        assertFalse(SubclassProxyFactory.canProxy(HiddenCalculator.class));
+    }
+
+    @Test
+    public void cachedMethodsAreDispatchedThroughTheCache() {
+        ResultCaches caches = new ResultCaches();
+        Catalog bean = new Catalog();
+        Catalog catalog = SubclassProxyFactory.createProxy(bean, new ConcurrentHashMap<>(), caches);
+
+        assertEquals(12, catalog.priceOf("Hawaii", 2));
+        assertEquals(12, catalog.priceOf("Hawaii", 2));
+        assertEquals(18, catalog.priceOf("Hawaii", 3));
+        assertEquals(2, bean.lookups);
+
+        catalog.add("Bacon");
+        catalog.priceOf("Hawaii", 2);
+
+        assertEquals(3, bean.lookups);
+        assertEquals(1, caches.get("catalog").getHitCount());
+    }
+
+    @Test
+    public void resultsReadBeforeAConcurrentEvictionAreNotCached() {
+        Menu bean = new Menu();
+        Menu menu = SubclassProxyFactory.createProxy(bean, new ConcurrentHashMap<>(), new ResultCaches());
+        // the update and its eviction land between the lookup reading the old version and returning it
+        bean.duringLookup = menu::update;
+
+        assertEquals(0, menu.version());
+        assertEquals(1, menu.version());
+        assertEquals(1, menu.version());
+    }
+}